@@ -0,0 +1,232 @@
+package com.example.specgenerator.config;
+
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The single HTTP client used for all Gemini traffic. Connections are pooled and kept
+ * alive, so generation and refinement calls reuse TLS sessions instead of handshaking
+ * on every request.
+ */
+@Configuration
+public class AIHttpClientConfig {
+
+    @Value("${gemini.http.max-connections:50}")
+    private int maxConnections;
+
+    @Value("${gemini.http.connect-timeout-ms:5000}")
+    private int connectTimeoutMs;
+
+    @Value("${gemini.http.read-timeout-ms:60000}")
+    private int readTimeoutMs;
+
+    @Value("${gemini.http.pool-timeout-ms:2000}")
+    private int poolTimeoutMs;
+
+    @Value("${gemini.http.total-timeout-ms:120000}")
+    private long totalTimeoutMs;
+
+    @Value("${gemini.http.idle-evict-ms:30000}")
+    private long idleEvictMs;
+
+    @Bean(destroyMethod = "shutdown")
+    public PoolingHttpClientConnectionManager aiConnectionManager() {
+        PoolingHttpClientConnectionManager manager = new PoolingHttpClientConnectionManager();
+        manager.setMaxTotal(maxConnections);
+        // Everything goes to one host, so a single route may use the whole pool
+        manager.setDefaultMaxPerRoute(maxConnections);
+        manager.setValidateAfterInactivity(2000);
+        return manager;
+    }
+
+    @Bean(destroyMethod = "close")
+    public CloseableHttpClient aiHttpClient(PoolingHttpClientConnectionManager aiConnectionManager) {
+        RequestConfig requestConfig = RequestConfig.custom()
+                .setConnectTimeout(connectTimeoutMs)
+                .setSocketTimeout(readTimeoutMs)
+                .setConnectionRequestTimeout(poolTimeoutMs)
+                .build();
+
+        return HttpClients.custom()
+                .setConnectionManager(aiConnectionManager)
+                .setDefaultRequestConfig(requestConfig)
+                .evictExpiredConnections()
+                .evictIdleConnections(idleEvictMs, TimeUnit.MILLISECONDS)
+                .build();
+    }
+
+    @Bean
+    public DeadlineRequestFactory aiRequestFactory(CloseableHttpClient aiHttpClient) {
+        return new DeadlineRequestFactory(aiHttpClient, totalTimeoutMs);
+    }
+
+    @Bean
+    public RestTemplate aiRestTemplate(DeadlineRequestFactory aiRequestFactory) {
+        return new RestTemplate(aiRequestFactory);
+    }
+
+    /**
+     * The socket timeout only bounds the gap between two reads, so a slow trickle can
+     * keep a request open indefinitely. Aborting the request after a fixed deadline
+     * caps the total time. The deadline is cancelled once the response is closed or
+     * the exchange fails, so finished requests do not sit in the scheduler queue.
+     */
+    static class DeadlineRequestFactory extends HttpComponentsClientHttpRequestFactory {
+
+        private final ScheduledThreadPoolExecutor scheduler;
+
+        private final long totalTimeoutMs;
+
+        // Hands the deadline scheduled in postProcessHttpRequest back to createRequest
+        private final ThreadLocal<ScheduledFuture<?>> scheduledDeadline = new ThreadLocal<>();
+
+        DeadlineRequestFactory(CloseableHttpClient httpClient, long totalTimeoutMs) {
+            super(httpClient);
+            this.totalTimeoutMs = totalTimeoutMs;
+            this.scheduler = new ScheduledThreadPoolExecutor(1, r -> {
+                Thread t = new Thread(r, "ai-http-deadline");
+                t.setDaemon(true);
+                return t;
+            });
+            this.scheduler.setRemoveOnCancelPolicy(true);
+        }
+
+        @Override
+        public ClientHttpRequest createRequest(URI uri, HttpMethod httpMethod) throws IOException {
+            ClientHttpRequest request = null;
+            ScheduledFuture<?> deadline;
+            try {
+                request = super.createRequest(uri, httpMethod);
+            } finally {
+                deadline = scheduledDeadline.get();
+                scheduledDeadline.remove();
+                if (request == null && deadline != null) {
+                    deadline.cancel(false);
+                }
+            }
+            return deadline == null ? request : new DeadlineRequest(request, deadline);
+        }
+
+        @Override
+        protected void postProcessHttpRequest(HttpUriRequest request) {
+            if (totalTimeoutMs > 0) {
+                scheduledDeadline.set(scheduler.schedule(request::abort, totalTimeoutMs, TimeUnit.MILLISECONDS));
+            }
+        }
+
+        @Override
+        public void destroy() throws Exception {
+            scheduler.shutdownNow();
+            super.destroy();
+        }
+    }
+
+    private static class DeadlineRequest implements ClientHttpRequest {
+
+        private final ClientHttpRequest delegate;
+
+        private final ScheduledFuture<?> deadline;
+
+        DeadlineRequest(ClientHttpRequest delegate, ScheduledFuture<?> deadline) {
+            this.delegate = delegate;
+            this.deadline = deadline;
+        }
+
+        @Override
+        public ClientHttpResponse execute() throws IOException {
+            ClientHttpResponse response;
+            try {
+                response = delegate.execute();
+            } catch (IOException | RuntimeException e) {
+                deadline.cancel(false);
+                throw e;
+            }
+            return new DeadlineResponse(response, deadline);
+        }
+
+        @Override
+        public OutputStream getBody() throws IOException {
+            return delegate.getBody();
+        }
+
+        @Override
+        public String getMethodValue() {
+            return delegate.getMethodValue();
+        }
+
+        @Override
+        public URI getURI() {
+            return delegate.getURI();
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return delegate.getHeaders();
+        }
+    }
+
+    // The body is streamed after execute() returns, so the deadline keeps running until close
+    private static class DeadlineResponse implements ClientHttpResponse {
+
+        private final ClientHttpResponse delegate;
+
+        private final ScheduledFuture<?> deadline;
+
+        DeadlineResponse(ClientHttpResponse delegate, ScheduledFuture<?> deadline) {
+            this.delegate = delegate;
+            this.deadline = deadline;
+        }
+
+        @Override
+        public HttpStatus getStatusCode() throws IOException {
+            return delegate.getStatusCode();
+        }
+
+        @Override
+        public int getRawStatusCode() throws IOException {
+            return delegate.getRawStatusCode();
+        }
+
+        @Override
+        public String getStatusText() throws IOException {
+            return delegate.getStatusText();
+        }
+
+        @Override
+        public InputStream getBody() throws IOException {
+            return delegate.getBody();
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return delegate.getHeaders();
+        }
+
+        @Override
+        public void close() {
+            deadline.cancel(false);
+            delegate.close();
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.example.specgenerator.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+/**
+ * Pool for @Scheduled methods, so purge, outbox, migration and search refresh don't share
+ * one thread: a slow purge or SMTP batch would otherwise delay every other scheduled task.
+ */
+@Configuration
+public class SchedulingConfig {
+
+    @Value("${app.scheduling.pool-size:4}")
+    private int poolSize;
+
+    @Bean
+    public ThreadPoolTaskScheduler taskScheduler() {
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setPoolSize(poolSize);
+        scheduler.setThreadNamePrefix("scheduled-");
+        scheduler.setDaemon(true);
+        return scheduler;
+    }
+}
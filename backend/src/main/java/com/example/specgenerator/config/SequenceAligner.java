@@ -0,0 +1,64 @@
+package com.example.specgenerator.config;
+
+import org.hibernate.dialect.Dialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManagerFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Moves the id sequences of tables that used to be IDENTITY columns past the ids
+ * already in use. ddl-auto creates the sequences starting at 1, which would collide
+ * with existing rows on an upgraded database; on a fresh one this does nothing.
+ */
+@Component
+public class SequenceAligner {
+
+    private static final Logger logger = LoggerFactory.getLogger(SequenceAligner.class);
+
+    // Must match the allocationSize of the entities' @SequenceGenerator
+    private static final int ALLOCATION_SIZE = 50;
+
+    // Table -> sequence
+    private static final Map<String, String> SEQUENCES = new LinkedHashMap<>();
+
+    static {
+        SEQUENCES.put("generated_specs", "generated_specs_seq");
+        SEQUENCES.put("spec_sections", "spec_sections_seq");
+        SEQUENCES.put("spec_generation_jobs", "spec_generation_jobs_seq");
+    }
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    // Injected so this runs after Hibernate has created the sequences
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    @PostConstruct
+    public void align() {
+        Dialect dialect = entityManagerFactory.unwrap(SessionFactoryImplementor.class).getJdbcServices().getDialect();
+        for (Map.Entry<String, String> entry : SEQUENCES.entrySet()) {
+            Long maxId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM " + entry.getKey(), Long.class);
+            if (maxId == null) {
+                continue;
+            }
+            Long next = jdbcTemplate.queryForObject(dialect.getSequenceNextValString(entry.getValue()), Long.class);
+            // Hibernate's pooled optimizer hands out the block ending at the value it reads,
+            // so the next value it reads must be at least maxId + ALLOCATION_SIZE
+            if (next != null && next < maxId) {
+                long restart = maxId + ALLOCATION_SIZE;
+                jdbcTemplate.execute("ALTER SEQUENCE " + entry.getValue() + " RESTART WITH " + restart);
+                logger.info("Moved sequence {} to {} past the existing ids of {}", entry.getValue(), restart,
+                        entry.getKey());
+            }
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.example.specgenerator.config;
+
+import com.example.specgenerator.security.ratelimit.RateLimitInterceptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+public class WebMvcConfig implements WebMvcConfigurer {
+
+    @Autowired
+    private RateLimitInterceptor rateLimitInterceptor;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(rateLimitInterceptor)
+                .addPathPatterns("/api/specs/generate", "/api/specs/generate/**",
+                        "/api/specs/refine", "/api/specs/refine/**")
+                // Batches are charged per item by the controller
+                .excludePathPatterns("/api/specs/generate/batch");
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.specgenerator.controller;
+
+import com.example.specgenerator.security.password.BoundedPasswordEncoder;
+import com.example.specgenerator.security.ratelimit.MemberRateLimiter;
+import com.example.specgenerator.service.AIService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@CrossOrigin(origins = "*", maxAge = 3600)
+@RestController
+@RequestMapping("/api/ai")
+public class AIStatsController {
+
+    @Autowired
+    AIService aiService;
+
+    @Autowired
+    MemberRateLimiter rateLimiter;
+
+    @Autowired
+    BoundedPasswordEncoder passwordEncoder;
+
+    @GetMapping("/stats")
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("httpPool", aiService.getPoolStats());
+        stats.put("responseCache", aiService.getCacheStats());
+        stats.put("singleFlight", aiService.getSingleFlightStats());
+        stats.put("gateway", aiService.getGatewayStats());
+        stats.put("rateLimit", rateLimiter.getStats());
+        // Not AI, but the same kind of capacity signal: login hashing pool and per-operation timings
+        stats.put("passwordHashing", passwordEncoder.getStats());
+        return stats;
+    }
+}
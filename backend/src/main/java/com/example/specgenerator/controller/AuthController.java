@@ -1,6 +1,7 @@
 package com.example.specgenerator.controller;
 
 import com.example.specgenerator.model.Member;
+import com.example.specgenerator.model.PasswordResetToken;
 import com.example.specgenerator.payload.request.ForgotPasswordRequest;
 import com.example.specgenerator.payload.request.LoginRequest;
 import com.example.specgenerator.payload.request.ResetPasswordRequest;
@@ -9,13 +10,16 @@ import com.example.specgenerator.payload.response.JwtResponse;
 import com.example.specgenerator.payload.response.MessageResponse;
 import com.example.specgenerator.repository.MemberRepository;
 import com.example.specgenerator.security.jwt.JwtUtils;
+import com.example.specgenerator.security.services.LastLoginBuffer;
+import com.example.specgenerator.security.services.MemberPrincipal;
+import com.example.specgenerator.security.services.MemberPrincipalCache;
+import com.example.specgenerator.service.PasswordResetService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.web.bind.annotation.*;
 
@@ -41,6 +45,12 @@ public class AuthController {
         @Autowired
         JwtUtils jwtUtils;
 
+        @Autowired
+        MemberPrincipalCache principalCache;
+
+        @Autowired
+        LastLoginBuffer lastLoginBuffer;
+
         @PostMapping("/signin")
         public ResponseEntity<?> authenticateUser(@Valid @RequestBody LoginRequest loginRequest) {
 
@@ -52,23 +62,16 @@ public class AuthController {
                 SecurityContextHolder.getContext().setAuthentication(authentication);
                 String jwt = jwtUtils.generateJwtToken(authentication);
 
-                UserDetails userDetails = (UserDetails) authentication.getPrincipal();
+                MemberPrincipal userDetails = (MemberPrincipal) authentication.getPrincipal();
                 List<String> roles = userDetails.getAuthorities().stream()
                                 .map(item -> item.getAuthority())
                                 .collect(Collectors.toList());
 
-                Long memberId = memberRepository.findByEmail(userDetails.getUsername())
-                                .map(Member::getId)
-                                .orElse(null);
-
-                // Update last login
-                memberRepository.findByEmail(userDetails.getUsername()).ifPresent(member -> {
-                        member.setLastLoginAt(LocalDateTime.now());
-                        memberRepository.save(member);
-                });
+                // Written behind in batches; the member was already loaded by authentication
+                lastLoginBuffer.record(userDetails.getId(), LocalDateTime.now());
 
                 return ResponseEntity.ok(new JwtResponse(jwt,
-                                memberId,
+                                userDetails.getId(),
                                 userDetails.getUsername(),
                                 roles));
         }
@@ -107,7 +110,7 @@ public class AuthController {
         }
 
         @Autowired
-        com.example.specgenerator.service.EmailService emailService;
+        PasswordResetService passwordResetService;
 
         @PostMapping("/forgot-password")
         public ResponseEntity<?> forgotPassword(@Valid @RequestBody ForgotPasswordRequest request) {
@@ -115,38 +118,24 @@ public class AuthController {
                                 .orElseThrow(() -> new RuntimeException(
                                                 "錯誤：找不到此 Email 的使用者: " + request.getEmail()));
 
-                // Generate token
-                String token = UUID.randomUUID().toString();
-                member.setResetPasswordToken(token);
-                member.setResetPasswordTokenExpiry(LocalDateTime.now().plusHours(24)); // 24 hours expiry
-                memberRepository.save(member);
-
-                // Send email
-                emailService.sendSimpleMessage(
-                                request.getEmail(),
-                                "密碼重置請求",
-                                "若要重置您的密碼，請使用以下 Token: " + token);
-
-                System.out.println("Reset Token for " + request.getEmail() + ": " + token);
+                passwordResetService.issueAndSend(member.getId(), request.getEmail());
 
                 return ResponseEntity.ok(new MessageResponse("密碼重置 Token 已生成並發送至您的 Email。"));
         }
 
         @PostMapping("/reset-password")
         public ResponseEntity<?> resetPassword(@Valid @RequestBody ResetPasswordRequest request) {
-                String token = request.getToken();
-
-                Member member = memberRepository.findByResetPasswordToken(token)
+                PasswordResetToken resetToken = passwordResetService.find(request.getToken())
                                 .orElseThrow(() -> new RuntimeException("錯誤：無效或過期的 Token。"));
 
-                if (member.getResetPasswordTokenExpiry().isBefore(LocalDateTime.now())) {
+                if (resetToken.getExpiresAt().isBefore(LocalDateTime.now())) {
                         return ResponseEntity.badRequest().body(new MessageResponse("錯誤：Token 已過期。"));
                 }
 
-                member.setPassword(encoder.encode(request.getNewPassword()));
-                member.setResetPasswordToken(null);
-                member.setResetPasswordTokenExpiry(null);
-                memberRepository.save(member);
+                // Hashed before the transaction so bcrypt does not hold a connection
+                String email = passwordResetService.redeem(resetToken, encoder.encode(request.getNewPassword()))
+                                .orElseThrow(() -> new RuntimeException("錯誤：無效或過期的 Token。"));
+                principalCache.invalidate(email);
 
                 return ResponseEntity.ok(new MessageResponse("密碼重置成功！"));
         }
@@ -0,0 +1,61 @@
+package com.example.specgenerator.controller;
+
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.DigestUtils;
+import org.springframework.web.context.request.WebRequest;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * ETags for GET endpoints whose version can be read more cheaply than the response
+ * itself. Matching requests are answered with 304 before the body is built.
+ * <p>
+ * The tags are weak: they name the content, not the bytes, so the same tag covers the
+ * gzip and identity encodings. Tomcat only compresses responses without a strong ETag.
+ */
+final class ConditionalGet {
+
+    // Browsers keep the response but revalidate it on every use
+    static final CacheControl REVALIDATE = CacheControl.noCache().cachePrivate();
+
+    private ConditionalGet() {
+    }
+
+    static String etag(Object... parts) {
+        StringBuilder key = new StringBuilder();
+        for (Object part : parts) {
+            key.append(part).append('|');
+        }
+        return "W/\"" + DigestUtils.md5DigestAsHex(key.toString().getBytes(StandardCharsets.UTF_8)) + "\"";
+    }
+
+    static boolean isNotModified(WebRequest request, String etag) {
+        String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            // Weak comparison: W/"x" and "x" match each other
+            String tag = candidate.trim();
+            if (tag.equals("*") || opaque(tag).equals(opaque(etag))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String opaque(String tag) {
+        return tag.startsWith("W/") ? tag.substring(2) : tag;
+    }
+
+    static <T> ResponseEntity<T> notModified(String etag) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(REVALIDATE).build();
+    }
+
+    static <T> ResponseEntity<T> ok(String etag, T body) {
+        return ResponseEntity.ok().eTag(etag).cacheControl(REVALIDATE).body(body);
+    }
+}
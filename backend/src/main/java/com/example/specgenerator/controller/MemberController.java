@@ -5,10 +5,11 @@ import com.example.specgenerator.payload.request.ChangePasswordRequest;
 import com.example.specgenerator.payload.request.UpdateProfileRequest;
 import com.example.specgenerator.payload.response.MessageResponse;
 import com.example.specgenerator.repository.MemberRepository;
+import com.example.specgenerator.security.services.MemberPrincipal;
+import com.example.specgenerator.security.services.MemberPrincipalCache;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.web.bind.annotation.*;
 
@@ -25,10 +26,12 @@ public class MemberController {
     @Autowired
     PasswordEncoder encoder;
 
+    @Autowired
+    MemberPrincipalCache principalCache;
+
     @GetMapping("/me")
     public ResponseEntity<?> getMyProfile() {
-        UserDetails userDetails = (UserDetails) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
-        Member member = memberRepository.findByEmail(userDetails.getUsername())
+        Member member = memberRepository.findById(currentMember().getId())
                 .orElseThrow(() -> new RuntimeException("Error: Member not found."));
 
         // Hide sensitive info like password
@@ -38,8 +41,7 @@ public class MemberController {
 
     @PutMapping("/me")
     public ResponseEntity<?> updateMyProfile(@RequestBody UpdateProfileRequest updateRequest) {
-        UserDetails userDetails = (UserDetails) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
-        return memberRepository.findByEmail(userDetails.getUsername())
+        return memberRepository.findById(currentMember().getId())
                 .map(member -> {
                     member.setName(updateRequest.getName());
                     member.setPhone(updateRequest.getPhone());
@@ -47,6 +49,7 @@ public class MemberController {
                     member.setBirthday(updateRequest.getBirthday());
 
                     memberRepository.save(member);
+                    principalCache.invalidate(member.getEmail());
                     return ResponseEntity.ok(new MessageResponse("個人資料更新成功！"));
                 })
                 .orElseThrow(() -> new RuntimeException("錯誤：找不到使用者"));
@@ -54,9 +57,7 @@ public class MemberController {
 
     @PostMapping("/change-password")
     public ResponseEntity<?> changePassword(@Valid @RequestBody ChangePasswordRequest changePasswordRequest) {
-        UserDetails userDetails = (UserDetails) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
-
-        Member member = memberRepository.findByEmail(userDetails.getUsername())
+        Member member = memberRepository.findById(currentMember().getId())
                 .orElseThrow(() -> new RuntimeException("錯誤：找不到使用者"));
 
         if (!encoder.matches(changePasswordRequest.getOldPassword(), member.getPassword())) {
@@ -65,7 +66,12 @@ public class MemberController {
 
         member.setPassword(encoder.encode(changePasswordRequest.getNewPassword()));
         memberRepository.save(member);
+        principalCache.invalidate(member.getEmail());
 
         return ResponseEntity.ok(new MessageResponse("密碼修改成功！"));
     }
+
+    private MemberPrincipal currentMember() {
+        return (MemberPrincipal) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+    }
 }
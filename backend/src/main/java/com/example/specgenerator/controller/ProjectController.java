@@ -1,15 +1,18 @@
 package com.example.specgenerator.controller;
 
-import com.example.specgenerator.model.Project;
 import com.example.specgenerator.model.Member;
+import com.example.specgenerator.model.Project;
 import com.example.specgenerator.repository.ProjectRepository;
 import com.example.specgenerator.repository.MemberRepository;
+import com.example.specgenerator.security.services.MemberPrincipal;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 
 @CrossOrigin(origins = "*", maxAge = 3600)
@@ -24,17 +27,27 @@ public class ProjectController {
     MemberRepository memberRepository;
 
     @GetMapping
-    public List<Project> getAllProjects() {
-        UserDetails userDetails = (UserDetails) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
-        Member member = memberRepository.findByEmail(userDetails.getUsername())
-                .orElseThrow(() -> new RuntimeException("Member not found"));
-        return projectRepository.findByMemberId(member.getId());
+    public ResponseEntity<List<Project>> getAllProjects(WebRequest request) {
+        List<Project> projects = projectRepository.findByMemberIdAndDeletedAtIsNull(currentMember().getId());
+
+        // Projects are small; hashing their fields is cheaper than serializing and sending them
+        List<Object> parts = new ArrayList<>();
+        for (Project project : projects) {
+            parts.add(project.getId());
+            parts.add(project.getName());
+            parts.add(project.getDescription());
+            parts.add(project.getCreatedAt());
+        }
+        String etag = ConditionalGet.etag(parts.toArray());
+        if (ConditionalGet.isNotModified(request, etag)) {
+            return ConditionalGet.notModified(etag);
+        }
+        return ConditionalGet.ok(etag, projects);
     }
 
     @PostMapping
     public Project createProject(@RequestBody Project project) {
-        UserDetails userDetails = (UserDetails) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
-        Member member = memberRepository.findByEmail(userDetails.getUsername())
+        Member member = memberRepository.findById(currentMember().getId())
                 .orElseThrow(() -> new RuntimeException("Member not found"));
         project.setMember(member);
         return projectRepository.save(project);
@@ -42,26 +55,22 @@ public class ProjectController {
 
     @GetMapping("/{id}")
     public ResponseEntity<Project> getProjectById(@PathVariable Long id) {
-        UserDetails userDetails = (UserDetails) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
-        Member member = memberRepository.findByEmail(userDetails.getUsername())
-                .orElseThrow(() -> new RuntimeException("Member not found"));
+        Long memberId = currentMember().getId();
 
-        return projectRepository.findById(id)
-                .filter(p -> p.getMember().getId().equals(member.getId()))
+        return projectRepository.findByIdAndDeletedAtIsNull(id)
+                .filter(p -> p.getMember().getId().equals(memberId))
                 .map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
     }
 
     @PutMapping("/{id}")
     public ResponseEntity<?> updateProject(@PathVariable Long id, @RequestBody Project projectDetails) {
-        UserDetails userDetails = (UserDetails) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
-        Member member = memberRepository.findByEmail(userDetails.getUsername())
-                .orElseThrow(() -> new RuntimeException("錯誤：找不到會員"));
+        Long memberId = currentMember().getId();
 
-        Project project = projectRepository.findById(id)
+        Project project = projectRepository.findByIdAndDeletedAtIsNull(id)
                 .orElseThrow(() -> new RuntimeException("錯誤：找不到專案"));
 
-        if (!project.getMember().getId().equals(member.getId())) {
+        if (!project.getMember().getId().equals(memberId)) {
             throw new RuntimeException("錯誤：您沒有權限修改此專案");
         }
 
@@ -74,19 +83,23 @@ public class ProjectController {
 
     @DeleteMapping("/{id}")
     public ResponseEntity<?> deleteProject(@PathVariable Long id) {
-        UserDetails userDetails = (UserDetails) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
-        Member member = memberRepository.findByEmail(userDetails.getUsername())
-                .orElseThrow(() -> new RuntimeException("錯誤：找不到會員"));
+        Long memberId = currentMember().getId();
 
-        Project project = projectRepository.findById(id)
+        Project project = projectRepository.findByIdAndDeletedAtIsNull(id)
                 .orElseThrow(() -> new RuntimeException("錯誤：找不到專案"));
 
-        if (!project.getMember().getId().equals(member.getId())) {
+        if (!project.getMember().getId().equals(memberId)) {
             throw new RuntimeException("錯誤：您沒有權限刪除此專案");
         }
 
-        projectRepository.delete(project);
+        // Only marked here; ProjectPurger deletes the specs in chunks in the background
+        project.setDeletedAt(LocalDateTime.now());
+        projectRepository.save(project);
+
+        return ResponseEntity.accepted().build();
+    }
 
-        return ResponseEntity.ok().build();
+    private MemberPrincipal currentMember() {
+        return (MemberPrincipal) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
     }
 }
@@ -2,13 +2,45 @@ package com.example.specgenerator.controller;
 
 import com.example.specgenerator.model.GeneratedSpec;
 import com.example.specgenerator.model.Project;
+import com.example.specgenerator.payload.response.MessageResponse;
+import com.example.specgenerator.payload.response.SpecBatchResponse;
+import com.example.specgenerator.payload.response.SpecJobResponse;
+import com.example.specgenerator.payload.response.SpecSearchResponse;
+import com.example.specgenerator.payload.response.SpecSectionResponse;
+import com.example.specgenerator.payload.response.SpecSummaryPageResponse;
 import com.example.specgenerator.repository.GeneratedSpecRepository;
+import com.example.specgenerator.repository.SpecVersion;
+import com.example.specgenerator.repository.SpecRevision;
 import com.example.specgenerator.repository.ProjectRepository;
+import com.example.specgenerator.security.ratelimit.MemberRateLimiter;
+import com.example.specgenerator.security.services.MemberPrincipal;
 import com.example.specgenerator.service.AIService;
+import com.example.specgenerator.service.AIUnavailableException;
+import com.example.specgenerator.service.SpecGenerationService;
+import com.example.specgenerator.service.SpecJobService;
+import com.example.specgenerator.service.SpecQueryService;
+import com.example.specgenerator.service.SpecSearchService;
+import com.example.specgenerator.service.SpecSectionService;
+import com.example.specgenerator.service.SpecStreamService;
+import com.example.specgenerator.service.SpecTransferService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 
@@ -26,9 +58,149 @@ public class SpecController {
     @Autowired
     AIService aiService;
 
+    @Autowired
+    SpecJobService specJobService;
+
+    @Autowired
+    SpecStreamService specStreamService;
+
+    @Autowired
+    SpecQueryService specQueryService;
+
+    @Autowired
+    SpecSectionService specSectionService;
+
+    @Autowired
+    SpecTransferService specTransferService;
+
+    @Autowired
+    SpecSearchService specSearchService;
+
+    @Autowired
+    MemberRateLimiter rateLimiter;
+
+    private static final String NDJSON_VALUE = "application/x-ndjson";
+
+    private static final MediaType NDJSON = MediaType.parseMediaType(NDJSON_VALUE);
+
+    @Value("${app.spec-batches.max-items:100}")
+    private int maxBatchItems;
+
+    // Full specs with every artifact; prefer /project/{projectId}/summaries for listings
     @GetMapping("/project/{projectId}")
-    public List<GeneratedSpec> getSpecsByProject(@PathVariable Long projectId) {
-        return specRepository.findByProjectId(projectId);
+    public ResponseEntity<List<GeneratedSpec>> getSpecsByProject(@PathVariable Long projectId, WebRequest request) {
+        Project project = projectRepository.findByIdAndDeletedAtIsNull(projectId).orElse(null);
+        if (project == null) {
+            return ResponseEntity.notFound().build();
+        }
+        String etag = projectSpecsETag(project, "full");
+        if (ConditionalGet.isNotModified(request, etag)) {
+            return ConditionalGet.notModified(etag);
+        }
+        return ConditionalGet.ok(etag, specSectionService.attachSections(specRepository.findByProjectId(projectId)));
+    }
+
+    @GetMapping("/project/{projectId}/summaries")
+    public ResponseEntity<SpecSummaryPageResponse> getSpecSummaries(@PathVariable Long projectId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            WebRequest request) {
+        Project project = projectRepository.findByIdAndDeletedAtIsNull(projectId).orElse(null);
+        if (project == null) {
+            return ResponseEntity.notFound().build();
+        }
+        String etag = projectSpecsETag(project, "summaries", cursor, limit);
+        if (ConditionalGet.isNotModified(request, etag)) {
+            return ConditionalGet.notModified(etag);
+        }
+        return ConditionalGet.ok(etag, specQueryService.listSummaries(projectId, cursor, limit));
+    }
+
+    // Ranked full-text search over the caller's specs, optionally within one project
+    @GetMapping("/search")
+    public ResponseEntity<SpecSearchResponse> searchSpecs(@RequestParam String q,
+            @RequestParam(required = false) Long projectId,
+            @RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok(specSearchService.search(currentMember().getId(), q, projectId, limit));
+    }
+
+    // Streams every spec of the project as NDJSON (default) or as a zip of artifact files
+    @GetMapping("/project/{projectId}/export")
+    public ResponseEntity<StreamingResponseBody> exportSpecs(@PathVariable Long projectId,
+            @RequestParam(defaultValue = "ndjson") String format) {
+        if (!"ndjson".equals(format) && !"zip".equals(format)) {
+            return ResponseEntity.badRequest().build();
+        }
+        if (!projectRepository.existsByIdAndMemberIdAndDeletedAtIsNull(projectId, currentMember().getId())) {
+            return ResponseEntity.notFound().build();
+        }
+
+        boolean zip = "zip".equals(format);
+        StreamingResponseBody body = zip
+                ? out -> specTransferService.exportZip(projectId, out)
+                : out -> specTransferService.exportNdjson(projectId, out);
+        String filename = "project-" + projectId + "-specs." + format;
+        return ResponseEntity.ok()
+                .contentType(zip ? MediaType.parseMediaType("application/zip") : NDJSON)
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        ContentDisposition.attachment().filename(filename).build().toString())
+                .body(body);
+    }
+
+    // Accepts the NDJSON export format; the body is read and stored in chunks as it arrives
+    @PostMapping(value = "/project/{projectId}/import", consumes = NDJSON_VALUE)
+    public ResponseEntity<?> importSpecs(@PathVariable Long projectId, InputStream body) throws IOException {
+        if (!projectRepository.existsByIdAndMemberIdAndDeletedAtIsNull(projectId, currentMember().getId())) {
+            return ResponseEntity.notFound().build();
+        }
+        int imported = specTransferService.importNdjson(projectId, body);
+        return ResponseEntity.ok(Collections.singletonMap("imported", imported));
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<GeneratedSpec> getSpec(@PathVariable Long id, WebRequest request) {
+        SpecRevision revision = specQueryService.specRevision(id);
+        if (revision.getSpecCount() == 0) {
+            return ResponseEntity.notFound().build();
+        }
+        String etag = ConditionalGet.etag("spec", id, revision.getLastModified(), revision.getVersion());
+        if (ConditionalGet.isNotModified(request, etag)) {
+            return ConditionalGet.notModified(etag);
+        }
+        return specRepository.findById(id)
+                .map(spec -> ConditionalGet.ok(etag, specSectionService.attachSections(spec)))
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    @GetMapping("/{id}/sections/{section}")
+    public ResponseEntity<SpecSectionResponse> getSpecSection(@PathVariable Long id, @PathVariable String section,
+            WebRequest request) {
+        SpecRevision revision = specQueryService.specRevision(id);
+        if (revision.getSpecCount() == 0) {
+            return ResponseEntity.notFound().build();
+        }
+        String etag = ConditionalGet.etag("section", id, section, revision.getLastModified(), revision.getVersion());
+        if (ConditionalGet.isNotModified(request, etag)) {
+            return ConditionalGet.notModified(etag);
+        }
+        return specSectionService.getSection(id, section)
+                .map(body -> ConditionalGet.ok(etag, body))
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    // An optional "version" in the body makes the write conditional (409 when stale)
+    @PutMapping("/{id}/sections/{section}")
+    public ResponseEntity<SpecSectionResponse> updateSpecSection(@PathVariable Long id, @PathVariable String section,
+            @RequestBody Map<String, Object> request) {
+        Object content = request.get("content");
+        if (content != null && !(content instanceof String)) {
+            return ResponseEntity.badRequest().build();
+        }
+        Object version = request.get("version");
+        Long expectedVersion = version instanceof Number ? ((Number) version).longValue() : null;
+        return specSectionService.putSection(id, section, (String) content, expectedVersion)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
     }
 
     @PostMapping("/generate")
@@ -36,69 +208,159 @@ public class SpecController {
         Long projectId = Long.valueOf(payload.get("projectId").toString());
         String requirement = (String) payload.get("requirement");
 
-        Project project = projectRepository.findById(projectId)
+        Project project = projectRepository.findByIdAndDeletedAtIsNull(projectId)
                 .orElseThrow(() -> new RuntimeException("Project not found"));
 
-        GeneratedSpec spec = new GeneratedSpec();
-        spec.setProject(project);
-        spec.setRequirementDescription(requirement);
+        boolean bypassCache = Boolean.parseBoolean(String.valueOf(payload.get("bypassCache")));
+        String mode = (String) payload.get("mode");
+        if (mode != null && !SpecGenerationService.MODE_SINGLE.equals(mode)
+                && !SpecGenerationService.MODE_SECTIONS.equals(mode)) {
+            return ResponseEntity.badRequest().body(new MessageResponse("錯誤：不支援的生成模式: " + mode));
+        }
+
+        SpecJobResponse job = specJobService.enqueue(project, requirement, bypassCache, mode);
 
-        // Generate content using AI
-        String prompt = "You are a technical architect. Based on the following requirement, generate a technical specification in JSON format. "
-                +
-                "The JSON object MUST contain exactly these four keys: " +
-                "'apiSpec' (OpenAPI 3.0 YAML or JSON string), " +
-                "'dbSchema' (SQL create table statements), " +
-                "'sequenceDiagram' (Mermaid sequenceDiagram syntax), " +
-                "'mockData' (JSON example data). " +
-                "Do not include markdown code blocks (```json) in the response, just the raw JSON object. " +
-                "Requirement: " + requirement;
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(job);
+    }
 
-        String aiResponse = aiService.generateSpecContent(prompt);
+    // One job per requirement; follow progress on /batches/{batchId}/events
+    @PostMapping("/generate/batch")
+    public ResponseEntity<?> generateSpecBatch(@RequestBody Map<String, Object> payload) {
+        Long projectId = Long.valueOf(payload.get("projectId").toString());
 
-        try {
-            com.fasterxml.jackson.databind.ObjectMapper mapper = new com.fasterxml.jackson.databind.ObjectMapper();
-            Map<String, String> parsed = mapper.readValue(aiResponse, Map.class);
+        Object rawRequirements = payload.get("requirements");
+        if (!(rawRequirements instanceof List) || ((List<?>) rawRequirements).isEmpty()) {
+            return ResponseEntity.badRequest().body(new MessageResponse("錯誤：請提供至少一項需求"));
+        }
+        List<String> requirements = new ArrayList<>();
+        for (Object requirement : (List<?>) rawRequirements) {
+            if (!(requirement instanceof String) || ((String) requirement).trim().isEmpty()) {
+                return ResponseEntity.badRequest().body(new MessageResponse("錯誤：需求不可為空白"));
+            }
+            requirements.add((String) requirement);
+        }
+        if (requirements.size() > maxBatchItems) {
+            return ResponseEntity.badRequest()
+                    .body(new MessageResponse("錯誤：單次批次最多 " + maxBatchItems + " 項需求"));
+        }
 
-            spec.setApiSpec(parsed.getOrDefault("apiSpec", aiResponse));
-            spec.setDbSchema(parsed.getOrDefault("dbSchema", "-- No DB Schema generated"));
-            spec.setSequenceDiagram(parsed.getOrDefault("sequenceDiagram",
-                    "sequenceDiagram\nNote right of User: Parsing failed or empty"));
-            spec.setMockData(parsed.getOrDefault("mockData", "{}"));
+        String mode = (String) payload.get("mode");
+        if (mode != null && !SpecGenerationService.MODE_SINGLE.equals(mode)
+                && !SpecGenerationService.MODE_SECTIONS.equals(mode)) {
+            return ResponseEntity.badRequest().body(new MessageResponse("錯誤：不支援的生成模式: " + mode));
+        }
 
-        } catch (Exception e) {
-            e.printStackTrace();
-            // Fallback
-            spec.setApiSpec(aiResponse);
-            spec.setDbSchema("-- Error parsing AI response");
-            spec.setSequenceDiagram("sequenceDiagram\nNote right of User: Error parsing AI response");
-            spec.setMockData("{}");
+        Project project = projectRepository.findByIdAndDeletedAtIsNull(projectId)
+                .orElseThrow(() -> new RuntimeException("Project not found"));
+        boolean bypassCache = Boolean.parseBoolean(String.valueOf(payload.get("bypassCache")));
+
+        ResponseEntity<?> throttled = chargeGenerations(requirements.size());
+        if (throttled != null) {
+            return throttled;
         }
+        SpecBatchResponse batch = specJobService.enqueueBatch(project, requirements, bypassCache, mode);
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(batch);
+    }
 
-        specRepository.save(spec);
+    @GetMapping("/batches/{batchId}")
+    public ResponseEntity<SpecBatchResponse> getBatchStatus(@PathVariable Long batchId) {
+        if (!specJobService.isBatchOwnedBy(batchId, currentMember().getId())) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(specJobService.getBatch(batchId));
+    }
 
-        return ResponseEntity.ok(spec);
+    @GetMapping(value = "/batches/{batchId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> subscribeBatch(@PathVariable Long batchId) {
+        if (!specJobService.isBatchOwnedBy(batchId, currentMember().getId())) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(specJobService.subscribeBatch(batchId));
+    }
+
+    @PostMapping("/batches/{batchId}/retry")
+    public ResponseEntity<?> retryBatch(@PathVariable Long batchId) {
+        if (!specJobService.isBatchOwnedBy(batchId, currentMember().getId())) {
+            return ResponseEntity.notFound().build();
+        }
+        long failed = specJobService.countFailedInBatch(batchId);
+        if (failed > 0) {
+            ResponseEntity<?> throttled = chargeGenerations(failed);
+            if (throttled != null) {
+                return throttled;
+            }
+        }
+        return ResponseEntity.ok(specJobService.retryBatch(batchId));
+    }
+
+    // Every queued item is one AI generation, so batches draw one generate token per item.
+    // Returns the 429 response when the member's bucket cannot cover all of them.
+    private ResponseEntity<?> chargeGenerations(long items) {
+        long retryAfterSeconds = rateLimiter.tryAcquire(MemberRateLimiter.GENERATE, currentMember().getUsername(),
+                items);
+        if (retryAfterSeconds == 0) {
+            return null;
+        }
+        if (retryAfterSeconds < 0) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).body(new MessageResponse(
+                    "錯誤：單次最多可生成 " + rateLimiter.getCapacity(MemberRateLimiter.GENERATE) + " 項需求"));
+        }
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds))
+                .body(new MessageResponse("錯誤：請求過於頻繁，請於 " + retryAfterSeconds + " 秒後再試。"));
+    }
+
+    @PostMapping(value = "/generate/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter generateSpecStream(@RequestBody Map<String, Object> payload) {
+        Long projectId = Long.valueOf(payload.get("projectId").toString());
+        String requirement = (String) payload.get("requirement");
+
+        Project project = projectRepository.findByIdAndDeletedAtIsNull(projectId)
+                .orElseThrow(() -> new RuntimeException("Project not found"));
+
+        boolean bypassCache = Boolean.parseBoolean(String.valueOf(payload.get("bypassCache")));
+
+        return specStreamService.streamGeneration(project, requirement, bypassCache);
+    }
+
+    @GetMapping("/jobs/{jobId}")
+    public ResponseEntity<SpecJobResponse> getJobStatus(@PathVariable Long jobId) {
+        if (!specJobService.isJobOwnedBy(jobId, currentMember().getId())) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(specJobService.getStatus(jobId));
+    }
+
+    @GetMapping(value = "/jobs/{jobId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> subscribeJob(@PathVariable Long jobId) {
+        if (!specJobService.isJobOwnedBy(jobId, currentMember().getId())) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(specJobService.subscribe(jobId));
     }
 
     @PutMapping("/{id}")
     public ResponseEntity<?> updateSpec(@PathVariable Long id, @RequestBody GeneratedSpec specDetails) {
-        GeneratedSpec spec = specRepository.findById(id)
+        GeneratedSpec spec = specSectionService.replace(id, specDetails)
                 .orElseThrow(() -> new RuntimeException("錯誤：找不到規格"));
-
-        spec.setApiSpec(specDetails.getApiSpec());
-        spec.setDbSchema(specDetails.getDbSchema());
-        spec.setSequenceDiagram(specDetails.getSequenceDiagram());
-        spec.setMockData(specDetails.getMockData());
-        specRepository.save(spec);
         return ResponseEntity.ok(spec);
     }
 
+    // JSON Merge Patch: only the members sent are written; include "version" to detect lost updates
+    @PatchMapping(value = "/{id}", consumes = {"application/merge-patch+json", MediaType.APPLICATION_JSON_VALUE})
+    public ResponseEntity<GeneratedSpec> patchSpec(@PathVariable Long id, @RequestBody Map<String, Object> patch) {
+        return specSectionService.patch(id, patch)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
     @DeleteMapping("/{id}")
     public ResponseEntity<?> deleteSpec(@PathVariable Long id) {
-        GeneratedSpec spec = specRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("錯誤：找不到規格"));
+        if (!specRepository.existsById(id)) {
+            throw new RuntimeException("錯誤：找不到規格");
+        }
 
-        specRepository.delete(spec);
+        specSectionService.delete(id);
         return ResponseEntity.ok().build();
     }
 
@@ -108,11 +370,41 @@ public class SpecController {
         String instruction = request.get("instruction");
         String currentContent = request.get("currentContent");
 
-        String refinedContent = aiService.refineContent(section, currentContent, instruction);
+        boolean bypassCache = Boolean.parseBoolean(request.get("bypassCache"));
+
+        String refinedContent;
+        try {
+            refinedContent = aiService.refineContentOrThrow(section, currentContent, instruction, bypassCache);
+        } catch (AIUnavailableException e) {
+            throw e;
+        } catch (Exception e) {
+            // Report the failure instead of handing back an error string the client would save
+            return ResponseEntity.status(HttpStatus.BAD_GATEWAY)
+                    .body(new MessageResponse("Error calling Gemini API: " + e.getMessage()));
+        }
 
         java.util.Map<String, String> response = new java.util.HashMap<>();
         response.put("refinedContent", refinedContent);
 
         return ResponseEntity.ok(response);
     }
+
+    @PostMapping(value = "/refine/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter refineSpecStream(@RequestBody Map<String, String> request) {
+        return specStreamService.streamRefinement(request.get("section"), request.get("currentContent"),
+                request.get("instruction"), Boolean.parseBoolean(request.get("bypassCache")));
+    }
+
+    // Changes whenever a spec of the project is created, deleted or edited
+    // Specs embed their project, so a rename or new description must change the tag too
+    private String projectSpecsETag(Project project, Object... variant) {
+        SpecVersion version = specQueryService.projectSpecsVersion(project.getId());
+        return ConditionalGet.etag("project-specs", project.getId(), project.getName(), project.getDescription(),
+                version.getSpecCount(), version.getMaxSpecId(), version.getLastModified(), version.getVersionSum(),
+                Arrays.toString(variant));
+    }
+
+    private MemberPrincipal currentMember() {
+        return (MemberPrincipal) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+    }
 }
@@ -0,0 +1,34 @@
+package com.example.specgenerator.model;
+
+import javax.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "ai_response_cache", indexes = {
+        @Index(name = "idx_ai_response_cache_expires", columnList = "expiresAt")
+})
+@Data
+@NoArgsConstructor
+public class AIResponseCacheEntry {
+    // SHA-256 hex of (model, prompt template version, prompt); generation prompts are whitespace-normalized first
+    @Id
+    @Column(length = 64)
+    private String cacheKey;
+
+    @Column(length = 64)
+    private String model;
+
+    @Column(columnDefinition = "TEXT", nullable = false)
+    private String response;
+
+    private LocalDateTime createdAt;
+
+    private LocalDateTime expiresAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+}
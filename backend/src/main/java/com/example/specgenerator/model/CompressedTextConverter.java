@@ -0,0 +1,30 @@
+package com.example.specgenerator.model;
+
+import com.example.specgenerator.service.SpecContentCodec;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import javax.persistence.AttributeConverter;
+import javax.persistence.Converter;
+
+/**
+ * Maps a text attribute to a compressed bytea column through {@link SpecContentCodec}.
+ * The codec is looked up on first use because it reads its dictionaries through JPA,
+ * which is still being set up when Hibernate creates its converters.
+ */
+@Converter
+public class CompressedTextConverter implements AttributeConverter<String, byte[]> {
+
+    @Autowired
+    ObjectProvider<SpecContentCodec> codec;
+
+    @Override
+    public byte[] convertToDatabaseColumn(String attribute) {
+        return attribute == null ? null : codec.getObject().encode(attribute);
+    }
+
+    @Override
+    public String convertToEntityAttribute(byte[] dbData) {
+        return dbData == null ? null : codec.getObject().decode(dbData);
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.specgenerator.model;
+
+import javax.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.time.LocalDateTime;
+
+/**
+ * Preset deflate dictionary used by compressed spec sections. Dictionaries are never
+ * changed or deleted: every compressed value records the id it was written with.
+ */
+@Entity
+@Table(name = "compression_dictionaries")
+@Data
+@NoArgsConstructor
+public class CompressionDictionary {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Integer id;
+
+    @Column(nullable = false, columnDefinition = "bytea")
+    private byte[] data;
+
+    // Number of stored sections the dictionary was trained on
+    private Integer sampleCount;
+
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+}
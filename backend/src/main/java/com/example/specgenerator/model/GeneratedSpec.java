@@ -3,15 +3,22 @@ package com.example.specgenerator.model;
 import javax.persistence.*;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.DynamicUpdate;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "generated_specs")
+@Table(name = "generated_specs", indexes = {
+        // Keyset pagination of a project's specs, newest first
+        @Index(name = "idx_generated_specs_project_created", columnList = "project_id, createdAt, id")
+})
 @Data
 @NoArgsConstructor
+@DynamicUpdate
 public class GeneratedSpec {
+    // A pooled sequence (not IDENTITY) so Hibernate can batch inserts; see SequenceAligner
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "generated_specs_seq")
+    @SequenceGenerator(name = "generated_specs_seq", sequenceName = "generated_specs_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne
@@ -21,22 +28,68 @@ public class GeneratedSpec {
     @Column(columnDefinition = "TEXT")
     private String requirementDescription;
 
-    @Column(columnDefinition = "TEXT")
+    // Artifacts live in spec_sections (see SpecSection); these carry them in and out of the API
+    @Transient
     private String apiSpec; // JSON or YAML
 
-    @Column(columnDefinition = "TEXT")
+    @Transient
     private String dbSchema; // SQL
 
-    @Column(columnDefinition = "TEXT")
+    @Transient
     private String sequenceDiagram; // Mermaid or PlantUML
 
-    @Column(columnDefinition = "TEXT")
+    @Transient
     private String mockData; // JSON
 
     private LocalDateTime createdAt;
 
+    // Touched by every write, including section-only edits, so each write bumps the version
+    private LocalDateTime updatedAt;
+
+    // Optimistic lock; clients send it back with edits and get 409 if it is stale
+    @Version
+    @Column(nullable = false, columnDefinition = "BIGINT DEFAULT 0")
+    private Long version;
+
     @PrePersist
     protected void onCreate() {
-        createdAt = LocalDateTime.now();
+        // Imported specs keep their original creation time
+        if (createdAt == null) {
+            createdAt = LocalDateTime.now();
+        }
+    }
+
+    public String getSection(String name) {
+        switch (name) {
+            case SpecSection.API_SPEC:
+                return apiSpec;
+            case SpecSection.DB_SCHEMA:
+                return dbSchema;
+            case SpecSection.SEQUENCE_DIAGRAM:
+                return sequenceDiagram;
+            case SpecSection.MOCK_DATA:
+                return mockData;
+            default:
+                throw new IllegalArgumentException("Unknown spec section: " + name);
+        }
+    }
+
+    public void setSection(String name, String content) {
+        switch (name) {
+            case SpecSection.API_SPEC:
+                apiSpec = content;
+                break;
+            case SpecSection.DB_SCHEMA:
+                dbSchema = content;
+                break;
+            case SpecSection.SEQUENCE_DIAGRAM:
+                sequenceDiagram = content;
+                break;
+            case SpecSection.MOCK_DATA:
+                mockData = content;
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown spec section: " + name);
+        }
     }
 }
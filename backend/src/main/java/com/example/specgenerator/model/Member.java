@@ -65,10 +65,4 @@ public class Member {
 
     @Column(name = "last_login_at")
     private LocalDateTime lastLoginAt;
-
-    @Column(name = "reset_password_token", length = 64)
-    private String resetPasswordToken;
-
-    @Column(name = "reset_password_token_expiry")
-    private LocalDateTime resetPasswordTokenExpiry;
 }
@@ -0,0 +1,42 @@
+package com.example.specgenerator.model;
+
+import javax.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.time.LocalDateTime;
+
+/**
+ * A password reset token. Only the SHA-256 of the token is stored, so a leaked table
+ * cannot be used to reset anyone's password; the token itself is only in the email.
+ */
+@Entity
+@Table(name = "password_reset_tokens", indexes = {
+        @Index(name = "uk_password_reset_tokens_hash", columnList = "tokenHash", unique = true),
+        @Index(name = "idx_password_reset_tokens_expires", columnList = "expiresAt"),
+        @Index(name = "idx_password_reset_tokens_member", columnList = "memberId")
+})
+@Data
+@NoArgsConstructor
+public class PasswordResetToken {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // SHA-256 hex of the token
+    @Column(nullable = false, length = 64)
+    private String tokenHash;
+
+    @Column(nullable = false)
+    private Long memberId;
+
+    @Column(nullable = false)
+    private LocalDateTime expiresAt;
+
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+}
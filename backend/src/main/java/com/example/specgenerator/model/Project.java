@@ -1,5 +1,6 @@
 package com.example.specgenerator.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import javax.persistence.*;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -19,12 +20,18 @@ public class Project {
 
     private String description;
 
+    // Never serialized: it carries the owner's email and password hash
+    @JsonIgnore
     @ManyToOne
     @JoinColumn(name = "member_id", nullable = false)
     private Member member;
 
     private LocalDateTime createdAt;
 
+    // Set when the project is deleted; ProjectPurger removes its specs and then the row
+    @JsonIgnore
+    private LocalDateTime deletedAt;
+
     @PrePersist
     protected void onCreate() {
         createdAt = LocalDateTime.now();
@@ -0,0 +1,35 @@
+package com.example.specgenerator.model;
+
+import javax.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.time.LocalDateTime;
+
+/**
+ * A group of generation jobs submitted together. Progress is not stored here; it is
+ * derived from the status of the batch's rows in spec_generation_jobs.
+ */
+@Entity
+@Table(name = "spec_generation_batches")
+@Data
+@NoArgsConstructor
+public class SpecGenerationBatch {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "project_id", nullable = false)
+    private Project project;
+
+    @Column(nullable = false)
+    private Integer itemCount;
+
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+}
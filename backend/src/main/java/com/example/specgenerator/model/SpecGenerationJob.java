@@ -0,0 +1,76 @@
+package com.example.specgenerator.model;
+
+import javax.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "spec_generation_jobs", indexes = {
+        @Index(name = "idx_spec_jobs_status_created", columnList = "status, createdAt"),
+        @Index(name = "idx_spec_jobs_project_requirement", columnList = "project_id, requirementHash"),
+        @Index(name = "idx_spec_jobs_batch", columnList = "batchId")
+})
+@Data
+@NoArgsConstructor
+public class SpecGenerationJob {
+
+    public enum Status {
+        PENDING, RUNNING, COMPLETED, FAILED
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "spec_generation_jobs_seq")
+    @SequenceGenerator(name = "spec_generation_jobs_seq", sequenceName = "spec_generation_jobs_seq", allocationSize = 50)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "project_id", nullable = false)
+    private Project project;
+
+    // Set when the job was submitted as part of a SpecGenerationBatch
+    private Long batchId;
+
+    @Column(columnDefinition = "TEXT", nullable = false)
+    private String requirement;
+
+    // Digest of the normalized requirement, used to spot duplicate submissions
+    @Column(length = 32)
+    private String requirementHash;
+
+    // Skip the AI response cache and always ask the model
+    @Column(nullable = false, columnDefinition = "BOOLEAN DEFAULT FALSE")
+    private Boolean bypassCache = false;
+
+    // "single" or "sections"; null means the configured default
+    @Column(length = 16)
+    private String generationMode;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private Status status = Status.PENDING;
+
+    private Long specId;
+
+    @Column(columnDefinition = "TEXT")
+    private String errorMessage;
+
+    @Column(nullable = false)
+    private Integer attempts = 0;
+
+    // Worker that currently holds the lease; a RUNNING job whose lease has expired
+    // is considered abandoned (e.g. the process died) and can be claimed again.
+    @Column(length = 64)
+    private String lockedBy;
+
+    private LocalDateTime lockedAt;
+
+    private LocalDateTime createdAt;
+
+    private LocalDateTime finishedAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+}
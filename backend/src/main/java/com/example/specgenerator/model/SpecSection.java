@@ -0,0 +1,78 @@
+package com.example.specgenerator.model;
+
+import javax.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.DynamicUpdate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * One artifact of a {@link GeneratedSpec}, stored in its own row so a section can be
+ * read or rewritten without touching the others.
+ */
+@Entity
+@Table(name = "spec_sections", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_spec_sections_spec_name", columnNames = { "spec_id", "name" })
+})
+@Data
+@NoArgsConstructor
+@DynamicUpdate
+public class SpecSection {
+
+    public static final String API_SPEC = "apiSpec";
+    public static final String DB_SCHEMA = "dbSchema";
+    public static final String SEQUENCE_DIAGRAM = "sequenceDiagram";
+    public static final String MOCK_DATA = "mockData";
+
+    public static final List<String> NAMES = Collections.unmodifiableList(
+            Arrays.asList(API_SPEC, DB_SCHEMA, SEQUENCE_DIAGRAM, MOCK_DATA));
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "spec_sections_seq")
+    @SequenceGenerator(name = "spec_sections_seq", sequenceName = "spec_sections_seq", allocationSize = 50)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "spec_id", nullable = false)
+    private GeneratedSpec spec;
+
+    @Column(nullable = false, length = 32)
+    private String name;
+
+    // Plain format; left null when the content is stored compressed
+    @Column(columnDefinition = "TEXT")
+    private String content;
+
+    // Compressed format (see CompressedTextConverter); either this or content is set
+    @Convert(converter = CompressedTextConverter.class)
+    @Column(name = "content_compressed", columnDefinition = "bytea")
+    private String compressedContent;
+
+    // Kept alongside the content so listings can report sizes without reading it
+    private Integer contentLength;
+
+    private LocalDateTime updatedAt;
+
+    public SpecSection(GeneratedSpec spec, String name) {
+        this.spec = spec;
+        this.name = name;
+    }
+
+    public String getContent() {
+        return compressedContent != null ? compressedContent : content;
+    }
+
+    public void updateContent(String content, boolean compressed) {
+        this.content = compressed ? null : content;
+        this.compressedContent = compressed ? content : null;
+        this.contentLength = content == null ? 0 : content.length();
+        this.updatedAt = LocalDateTime.now();
+    }
+
+    public static boolean isValidName(String name) {
+        return NAMES.contains(name);
+    }
+}
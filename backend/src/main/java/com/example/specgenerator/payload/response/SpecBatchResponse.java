@@ -0,0 +1,21 @@
+package com.example.specgenerator.payload.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class SpecBatchResponse {
+    private Long batchId;
+    private Long projectId;
+    private int total;
+    private long pending;
+    private long running;
+    private long completed;
+    private long failed;
+    private LocalDateTime createdAt;
+    // Omitted from the final SSE "done" event, which only carries the counts
+    private List<SpecJobResponse> items;
+}
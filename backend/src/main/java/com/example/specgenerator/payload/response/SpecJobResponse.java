@@ -0,0 +1,18 @@
+package com.example.specgenerator.payload.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import java.time.LocalDateTime;
+
+@Data
+@AllArgsConstructor
+public class SpecJobResponse {
+    private Long jobId;
+    private Long projectId;
+    private Long batchId;
+    private String status;
+    private Long specId;
+    private String errorMessage;
+    private LocalDateTime createdAt;
+    private LocalDateTime finishedAt;
+}
@@ -0,0 +1,13 @@
+package com.example.specgenerator.payload.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class SpecSearchResponse {
+    private List<SpecSearchResult> items;
+    private int totalMatches;
+    private long tookMs;
+}
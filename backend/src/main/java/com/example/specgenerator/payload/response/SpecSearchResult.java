@@ -0,0 +1,18 @@
+package com.example.specgenerator.payload.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class SpecSearchResult {
+    private Long specId;
+    private Long projectId;
+    private float score;
+    private String requirementSnippet;
+    private LocalDateTime createdAt;
+    // Fields the query terms were found in, e.g. "dbSchema"
+    private List<String> matchedFields;
+}
@@ -0,0 +1,16 @@
+package com.example.specgenerator.payload.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SpecSectionResponse {
+    private Long specId;
+    private String section;
+    private String content;
+    // Spec version after this read or write; send it back with the next edit
+    private Long version;
+}
@@ -0,0 +1,14 @@
+package com.example.specgenerator.payload.response;
+
+import com.example.specgenerator.repository.SpecSummary;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class SpecSummaryPageResponse {
+    private List<SpecSummary> items;
+    // Pass back as ?cursor= to get the next page; null on the last page
+    private String nextCursor;
+}
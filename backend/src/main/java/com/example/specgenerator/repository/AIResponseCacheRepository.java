@@ -0,0 +1,18 @@
+package com.example.specgenerator.repository;
+
+import com.example.specgenerator.model.AIResponseCacheEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+public interface AIResponseCacheRepository extends JpaRepository<AIResponseCacheEntry, String> {
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM AIResponseCacheEntry e WHERE e.expiresAt < :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+}
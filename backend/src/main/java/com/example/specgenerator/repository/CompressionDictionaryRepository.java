@@ -0,0 +1,10 @@
+package com.example.specgenerator.repository;
+
+import com.example.specgenerator.model.CompressionDictionary;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.Optional;
+
+public interface CompressionDictionaryRepository extends JpaRepository<CompressionDictionary, Integer> {
+    Optional<CompressionDictionary> findFirstByOrderByIdDesc();
+}
@@ -0,0 +1,57 @@
+package com.example.specgenerator.repository;
+
+import com.example.specgenerator.model.EmailOutboxMessage;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface EmailOutboxRepository extends JpaRepository<EmailOutboxMessage, Long> {
+
+    @Query("SELECT m.id FROM EmailOutboxMessage m " +
+            "WHERE m.status = com.example.specgenerator.model.EmailOutboxMessage$Status.PENDING " +
+            "AND m.nextAttemptAt <= :now ORDER BY m.nextAttemptAt, m.id")
+    List<Long> findDueIds(@Param("now") LocalDateTime now, Pageable pageable);
+
+    // Claiming pushes nextAttemptAt past the lease, so a message whose dispatcher died is
+    // picked up again once the lease runs out, and concurrent dispatchers never share one.
+    @Transactional
+    @Modifying
+    @Query("UPDATE EmailOutboxMessage m SET m.lockedBy = :owner, m.nextAttemptAt = :leaseUntil " +
+            "WHERE m.id IN :ids " +
+            "AND m.status = com.example.specgenerator.model.EmailOutboxMessage$Status.PENDING " +
+            "AND m.nextAttemptAt <= :now")
+    int claim(@Param("ids") Collection<Long> ids, @Param("owner") String owner, @Param("now") LocalDateTime now,
+            @Param("leaseUntil") LocalDateTime leaseUntil);
+
+    List<EmailOutboxMessage> findByLockedByAndStatusAndIdIn(String lockedBy, EmailOutboxMessage.Status status,
+            Collection<Long> ids);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE EmailOutboxMessage m SET m.status = com.example.specgenerator.model.EmailOutboxMessage$Status.SENT, " +
+            "m.sentAt = :now, m.attempts = m.attempts + 1, m.lockedBy = null, m.lastError = null " +
+            "WHERE m.id IN :ids AND m.lockedBy = :owner")
+    int markSent(@Param("ids") Collection<Long> ids, @Param("owner") String owner, @Param("now") LocalDateTime now);
+
+    // Back to PENDING with a later nextAttemptAt, or DEAD once the attempts are used up
+    @Transactional
+    @Modifying
+    @Query("UPDATE EmailOutboxMessage m SET m.status = :status, m.attempts = m.attempts + 1, " +
+            "m.lastError = :error, m.nextAttemptAt = :nextAttemptAt, m.lockedBy = null " +
+            "WHERE m.id = :id AND m.lockedBy = :owner")
+    int markFailed(@Param("id") Long id, @Param("owner") String owner, @Param("status") EmailOutboxMessage.Status status,
+            @Param("error") String error, @Param("nextAttemptAt") LocalDateTime nextAttemptAt);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM EmailOutboxMessage m " +
+            "WHERE m.status = com.example.specgenerator.model.EmailOutboxMessage$Status.SENT AND m.sentAt < :before")
+    int deleteSentBefore(@Param("before") LocalDateTime before);
+}
@@ -1,9 +1,87 @@
 package com.example.specgenerator.repository;
 
 import com.example.specgenerator.model.GeneratedSpec;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.QueryHint;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface GeneratedSpecRepository extends JpaRepository<GeneratedSpec, Long> {
     List<GeneratedSpec> findByProjectId(Long projectId);
+
+    // Section sizes come from spec_sections.contentLength, so no artifact content is read
+    String SUMMARY_SELECT = "SELECT s.id AS id, SUBSTRING(s.requirementDescription, 1, 200) AS requirementSnippet, " +
+            "s.createdAt AS createdAt, " +
+            "(SELECT x.contentLength FROM SpecSection x WHERE x.spec = s AND x.name = 'apiSpec') AS apiSpecSize, " +
+            "(SELECT x.contentLength FROM SpecSection x WHERE x.spec = s AND x.name = 'dbSchema') AS dbSchemaSize, " +
+            "(SELECT x.contentLength FROM SpecSection x WHERE x.spec = s AND x.name = 'sequenceDiagram') AS sequenceDiagramSize, " +
+            "(SELECT x.contentLength FROM SpecSection x WHERE x.spec = s AND x.name = 'mockData') AS mockDataSize " +
+            "FROM GeneratedSpec s WHERE s.project.id = :projectId ";
+
+    // Newest first; served by idx_generated_specs_project_created
+    @Query(SUMMARY_SELECT + "ORDER BY s.createdAt DESC, s.id DESC")
+    List<SpecSummary> findSummaries(@Param("projectId") Long projectId, Pageable pageable);
+
+    // Keyset continuation: rows strictly after (createdAt, id) in the same ordering
+    @Query(SUMMARY_SELECT + "AND (s.createdAt < :createdAt OR (s.createdAt = :createdAt AND s.id < :id)) " +
+            "ORDER BY s.createdAt DESC, s.id DESC")
+    List<SpecSummary> findSummariesBefore(@Param("projectId") Long projectId,
+            @Param("createdAt") LocalDateTime createdAt, @Param("id") Long id, Pageable pageable);
+
+    @Query("SELECT s.id FROM GeneratedSpec s WHERE s.project.id = :projectId")
+    List<Long> findIdsByProjectId(@Param("projectId") Long projectId);
+
+    @Query("SELECT s.id FROM GeneratedSpec s WHERE s.project.id = :projectId")
+    List<Long> findIdsByProjectId(@Param("projectId") Long projectId, Pageable pageable);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM GeneratedSpec s WHERE s.id IN :ids")
+    int deleteByIdIn(@Param("ids") Collection<Long> ids);
+
+    String EXPORT_SELECT = "SELECT s.id AS specId, s.project.id AS projectId, " +
+            "s.requirementDescription AS requirementDescription, s.createdAt AS createdAt, " +
+            "x.name AS name, x.content AS content, x.compressedContent AS compressedContent " +
+            "FROM GeneratedSpec s LEFT JOIN SpecSection x ON x.spec = s ";
+
+    // Forward-only scalar rows, so neither the result set nor the persistence context grows with the project.
+    // Must be consumed inside a transaction (PostgreSQL only honours the fetch size without autocommit).
+    @QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = "500"))
+    @Query(EXPORT_SELECT + "WHERE s.project.id = :projectId ORDER BY s.id")
+    Stream<SpecExportRow> streamExportRows(@Param("projectId") Long projectId);
+
+    // Every spec, for rebuilding the search index
+    @QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = "500"))
+    @Query(EXPORT_SELECT + "ORDER BY s.id")
+    Stream<SpecExportRow> streamAllExportRows();
+
+    @Query(EXPORT_SELECT + "WHERE s.id IN :ids ORDER BY s.id")
+    List<SpecExportRow> findExportRowsBySpecIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT s.id AS id, s.project.id AS projectId, SUBSTRING(s.requirementDescription, 1, 200) AS requirementSnippet, " +
+            "s.createdAt AS createdAt FROM GeneratedSpec s WHERE s.id IN :ids")
+    List<SpecSearchHit> findSearchHits(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT s.version FROM GeneratedSpec s WHERE s.id = :id")
+    Optional<Long> findVersionValueById(@Param("id") Long id);
+
+    // The join repeats the spec once per section, so its version is read with MAX
+    @Query("SELECT COUNT(DISTINCT s.id) AS specCount, MAX(x.updatedAt) AS lastModified, MAX(s.version) AS version " +
+            "FROM GeneratedSpec s LEFT JOIN SpecSection x ON x.spec = s WHERE s.id = :id")
+    SpecRevision findRevisionById(@Param("id") Long id);
+
+    @Query("SELECT COUNT(DISTINCT s.id) AS specCount, MAX(s.id) AS maxSpecId, MAX(x.updatedAt) AS lastModified, " +
+            "(SELECT SUM(v.version) FROM GeneratedSpec v WHERE v.project.id = :projectId) AS versionSum " +
+            "FROM GeneratedSpec s LEFT JOIN SpecSection x ON x.spec = s WHERE s.project.id = :projectId")
+    SpecVersion findVersionByProjectId(@Param("projectId") Long projectId);
 }
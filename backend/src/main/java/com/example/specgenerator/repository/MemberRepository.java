@@ -2,6 +2,9 @@ package com.example.specgenerator.repository;
 
 import com.example.specgenerator.model.Member;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.Optional;
@@ -12,12 +15,16 @@ public interface MemberRepository extends JpaRepository<Member, Long> {
 
     Optional<Member> findByMemberCode(String memberCode);
 
-    Optional<Member> findByResetPasswordToken(String resetPasswordToken);
-
     Boolean existsByEmail(String email);
 
     Boolean existsByPhone(String phone);
 
+    // Clears the persistence context so a Member loaded earlier in the request is not saved back over it
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Member m SET m.password = :newHash WHERE m.email = :email AND m.password = :oldHash")
+    int updatePasswordIfUnchanged(@Param("email") String email, @Param("oldHash") String oldHash,
+            @Param("newHash") String newHash);
+
     // If username login is supported, map it to email or name?
     // The original `User` had `username`. `Member` has `email` and `phone`.
     // Let's assume we use `email` as the username for login purposes.
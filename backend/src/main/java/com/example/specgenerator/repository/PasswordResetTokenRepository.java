@@ -0,0 +1,32 @@
+package com.example.specgenerator.repository;
+
+import com.example.specgenerator.model.PasswordResetToken;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface PasswordResetTokenRepository extends JpaRepository<PasswordResetToken, Long> {
+
+    Optional<PasswordResetToken> findByTokenHash(String tokenHash);
+
+    @Query("SELECT t.id FROM PasswordResetToken t WHERE t.expiresAt < :now")
+    List<Long> findExpiredIds(@Param("now") LocalDateTime now, Pageable pageable);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM PasswordResetToken t WHERE t.id IN :ids")
+    int deleteByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM PasswordResetToken t WHERE t.memberId = :memberId")
+    int deleteByMemberId(@Param("memberId") Long memberId);
+}
@@ -2,8 +2,32 @@ package com.example.specgenerator.repository;
 
 import com.example.specgenerator.model.Project;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 import java.util.List;
+import java.util.Optional;
 
+// Projects marked deleted are invisible to the API while they wait to be purged
 public interface ProjectRepository extends JpaRepository<Project, Long> {
-    List<Project> findByMemberId(Long memberId);
+    List<Project> findByMemberIdAndDeletedAtIsNull(Long memberId);
+
+    Optional<Project> findByIdAndDeletedAtIsNull(Long id);
+
+    boolean existsByIdAndDeletedAtIsNull(Long id);
+
+    boolean existsByIdAndMemberIdAndDeletedAtIsNull(Long id, Long memberId);
+
+    @Query("SELECT p.id FROM Project p WHERE p.member.id = :memberId AND p.deletedAt IS NULL")
+    List<Long> findIdsByMemberId(@Param("memberId") Long memberId);
+
+    @Query("SELECT p.id FROM Project p WHERE p.deletedAt IS NOT NULL ORDER BY p.deletedAt")
+    List<Long> findDeletedIds();
+
+    // Only ever removes a project that was marked deleted
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM Project p WHERE p.id = :id AND p.deletedAt IS NOT NULL")
+    int deleteMarkedById(@Param("id") Long id);
 }
@@ -0,0 +1,24 @@
+package com.example.specgenerator.repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * One section of a spec as read by the streaming export and the search index; a spec
+ * spans consecutive rows (or a single row with a null name when it has no sections).
+ */
+public interface SpecExportRow {
+
+    Long getSpecId();
+
+    Long getProjectId();
+
+    String getRequirementDescription();
+
+    LocalDateTime getCreatedAt();
+
+    String getName();
+
+    String getContent();
+
+    String getCompressedContent();
+}
@@ -0,0 +1,18 @@
+package com.example.specgenerator.repository;
+
+import com.example.specgenerator.model.SpecGenerationBatch;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+public interface SpecGenerationBatchRepository extends JpaRepository<SpecGenerationBatch, Long> {
+
+    boolean existsByIdAndProjectMemberId(Long id, Long memberId);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM SpecGenerationBatch b WHERE b.project.id = :projectId")
+    int deleteByProjectId(@Param("projectId") Long projectId);
+}
@@ -0,0 +1,105 @@
+package com.example.specgenerator.repository;
+
+import com.example.specgenerator.model.SpecGenerationJob;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface SpecGenerationJobRepository extends JpaRepository<SpecGenerationJob, Long> {
+
+    @Query("SELECT j FROM SpecGenerationJob j JOIN FETCH j.project WHERE j.id = :id")
+    Optional<SpecGenerationJob> findWithProjectById(@Param("id") Long id);
+
+    boolean existsByIdAndProjectMemberId(Long id, Long memberId);
+
+    Optional<SpecGenerationJob> findFirstByProjectIdAndRequirementHashAndStatusIn(Long projectId,
+            String requirementHash, Collection<SpecGenerationJob.Status> statuses);
+
+    List<SpecGenerationJob> findByBatchIdOrderById(Long batchId);
+
+    long countByBatchIdAndStatusIn(Long batchId, Collection<SpecGenerationJob.Status> statuses);
+
+    @Query("SELECT j.status, COUNT(j) FROM SpecGenerationJob j WHERE j.batchId = :batchId GROUP BY j.status")
+    List<Object[]> countByStatusForBatch(@Param("batchId") Long batchId);
+
+    @Query("SELECT j.id FROM SpecGenerationJob j WHERE j.project.id = :projectId")
+    List<Long> findIdsByProjectId(@Param("projectId") Long projectId, Pageable pageable);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM SpecGenerationJob j WHERE j.id IN :ids")
+    int deleteByIdIn(@Param("ids") Collection<Long> ids);
+
+    // Single generations go ahead of batch items so a large batch does not hold up interactive users
+    @Query("SELECT j.id FROM SpecGenerationJob j " +
+            "WHERE j.status = com.example.specgenerator.model.SpecGenerationJob$Status.PENDING " +
+            "OR (j.status = com.example.specgenerator.model.SpecGenerationJob$Status.RUNNING AND j.lockedAt < :staleBefore) " +
+            "ORDER BY CASE WHEN j.batchId IS NULL THEN 0 ELSE 1 END, j.createdAt, j.id")
+    List<Long> findClaimableIds(@Param("staleBefore") LocalDateTime staleBefore, Pageable pageable);
+
+    // Conditional update: when several workers race for the same row only one of them
+    // sees an affected row count of 1, so a job is never picked up twice.
+    @Transactional
+    @Modifying
+    @Query("UPDATE SpecGenerationJob j SET j.status = com.example.specgenerator.model.SpecGenerationJob$Status.RUNNING, " +
+            "j.lockedBy = :owner, j.lockedAt = :now, j.attempts = j.attempts + 1 " +
+            "WHERE j.id = :id AND j.attempts < :maxAttempts " +
+            "AND (j.status = com.example.specgenerator.model.SpecGenerationJob$Status.PENDING " +
+            "OR (j.status = com.example.specgenerator.model.SpecGenerationJob$Status.RUNNING AND j.lockedAt < :staleBefore))")
+    int claim(@Param("id") Long id, @Param("owner") String owner, @Param("now") LocalDateTime now,
+            @Param("staleBefore") LocalDateTime staleBefore, @Param("maxAttempts") int maxAttempts);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE SpecGenerationJob j SET j.status = com.example.specgenerator.model.SpecGenerationJob$Status.COMPLETED, " +
+            "j.specId = :specId, j.finishedAt = :now, j.lockedBy = null, j.lockedAt = null " +
+            "WHERE j.id = :id AND j.lockedBy = :owner " +
+            "AND j.status = com.example.specgenerator.model.SpecGenerationJob$Status.RUNNING")
+    int complete(@Param("id") Long id, @Param("owner") String owner, @Param("specId") Long specId,
+            @Param("now") LocalDateTime now);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE SpecGenerationJob j SET j.status = com.example.specgenerator.model.SpecGenerationJob$Status.FAILED, " +
+            "j.errorMessage = :error, j.finishedAt = :now, j.lockedBy = null, j.lockedAt = null " +
+            "WHERE j.id = :id AND j.lockedBy = :owner " +
+            "AND j.status = com.example.specgenerator.model.SpecGenerationJob$Status.RUNNING")
+    int fail(@Param("id") Long id, @Param("owner") String owner, @Param("error") String error,
+            @Param("now") LocalDateTime now);
+
+    // Hand a job back without counting the attempt
+    @Transactional
+    @Modifying
+    @Query("UPDATE SpecGenerationJob j SET j.status = com.example.specgenerator.model.SpecGenerationJob$Status.PENDING, " +
+            "j.attempts = j.attempts - 1, j.lockedBy = null, j.lockedAt = null " +
+            "WHERE j.id = :id AND j.lockedBy = :owner " +
+            "AND j.status = com.example.specgenerator.model.SpecGenerationJob$Status.RUNNING")
+    int release(@Param("id") Long id, @Param("owner") String owner);
+
+    // Puts the failed items of a batch back in the queue with a fresh attempt budget
+    @Transactional
+    @Modifying
+    @Query("UPDATE SpecGenerationJob j SET j.status = com.example.specgenerator.model.SpecGenerationJob$Status.PENDING, " +
+            "j.attempts = 0, j.errorMessage = null, j.finishedAt = null " +
+            "WHERE j.batchId = :batchId " +
+            "AND j.status = com.example.specgenerator.model.SpecGenerationJob$Status.FAILED")
+    int retryFailedInBatch(@Param("batchId") Long batchId);
+
+    // Jobs whose lease expired after the last allowed attempt are given up on instead of re-claimed.
+    @Transactional
+    @Modifying
+    @Query("UPDATE SpecGenerationJob j SET j.status = com.example.specgenerator.model.SpecGenerationJob$Status.FAILED, " +
+            "j.errorMessage = :error, j.finishedAt = :now, j.lockedBy = null, j.lockedAt = null " +
+            "WHERE j.status = com.example.specgenerator.model.SpecGenerationJob$Status.RUNNING " +
+            "AND j.lockedAt < :staleBefore AND j.attempts >= :maxAttempts")
+    int failExhausted(@Param("staleBefore") LocalDateTime staleBefore, @Param("maxAttempts") int maxAttempts,
+            @Param("error") String error, @Param("now") LocalDateTime now);
+}
@@ -0,0 +1,18 @@
+package com.example.specgenerator.repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * Change marker for a single spec, read without touching any artifact content.
+ * A section write changes the timestamp, any other edit bumps the version.
+ */
+public interface SpecRevision {
+
+    // 0 when the spec does not exist
+    Long getSpecCount();
+
+    LocalDateTime getLastModified();
+
+    // The spec's optimistic-lock version
+    Long getVersion();
+}
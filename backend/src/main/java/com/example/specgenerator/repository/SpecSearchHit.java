@@ -0,0 +1,15 @@
+package com.example.specgenerator.repository;
+
+import java.time.LocalDateTime;
+
+// Display fields of a search result; the ranking itself comes from the search index
+public interface SpecSearchHit {
+
+    Long getId();
+
+    Long getProjectId();
+
+    String getRequirementSnippet();
+
+    LocalDateTime getCreatedAt();
+}
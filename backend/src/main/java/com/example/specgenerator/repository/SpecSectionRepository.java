@@ -0,0 +1,34 @@
+package com.example.specgenerator.repository;
+
+import com.example.specgenerator.model.SpecSection;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface SpecSectionRepository extends JpaRepository<SpecSection, Long> {
+
+    Optional<SpecSection> findBySpecIdAndName(Long specId, String name);
+
+    List<SpecSection> findBySpecId(Long specId);
+
+    List<SpecSection> findBySpecIdIn(Collection<Long> specIds);
+
+    List<SpecSection> findBySpecIdAndNameIn(Long specId, Collection<String> names);
+
+    // Bulk delete: the sections are never loaded just to be removed
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM SpecSection x WHERE x.spec.id = :specId")
+    int deleteBySpecId(@Param("specId") Long specId);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM SpecSection x WHERE x.spec.id IN :specIds")
+    int deleteBySpecIdIn(@Param("specIds") Collection<Long> specIds);
+}
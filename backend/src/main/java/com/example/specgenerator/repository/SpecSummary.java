@@ -0,0 +1,24 @@
+package com.example.specgenerator.repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * Listing view of a {@link com.example.specgenerator.model.GeneratedSpec}: a requirement
+ * snippet and the size of each artifact instead of the artifacts themselves.
+ */
+public interface SpecSummary {
+
+    Long getId();
+
+    String getRequirementSnippet();
+
+    LocalDateTime getCreatedAt();
+
+    Integer getApiSpecSize();
+
+    Integer getDbSchemaSize();
+
+    Integer getSequenceDiagramSize();
+
+    Integer getMockDataSize();
+}
@@ -0,0 +1,19 @@
+package com.example.specgenerator.repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * Change marker for all specs of a project, read without touching any
+ * artifact content. Any create, delete or section write changes at least one value.
+ */
+public interface SpecVersion {
+
+    Long getSpecCount();
+
+    Long getMaxSpecId();
+
+    LocalDateTime getLastModified();
+
+    // Sum of the specs' optimistic-lock versions
+    Long getVersionSum();
+}
@@ -2,8 +2,10 @@ package com.example.specgenerator.security;
 
 import com.example.specgenerator.security.jwt.AuthEntryPointJwt;
 import com.example.specgenerator.security.jwt.AuthTokenFilter;
+import com.example.specgenerator.security.password.BoundedPasswordEncoder;
 import com.example.specgenerator.security.services.UserDetailsServiceImpl;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -13,10 +15,14 @@ import org.springframework.security.config.annotation.method.configuration.Enabl
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 
+import java.util.HashMap;
+import java.util.Map;
+
 @Configuration
 @EnableGlobalMethodSecurity(prePostEnabled = true)
 public class WebSecurityConfig {
@@ -26,6 +32,18 @@ public class WebSecurityConfig {
     @Autowired
     private AuthEntryPointJwt unauthorizedHandler;
 
+    @Value("${app.password.bcrypt-strength:10}")
+    private int bcryptStrength;
+
+    @Value("${app.password.hashing-threads:2}")
+    private int hashingThreads;
+
+    @Value("${app.password.hashing-queue:32}")
+    private int hashingQueue;
+
+    @Value("${app.password.hashing-timeout-ms:5000}")
+    private long hashingTimeoutMs;
+
     @Bean
     public AuthTokenFilter authenticationJwtTokenFilter() {
         return new AuthTokenFilter();
@@ -37,6 +55,8 @@ public class WebSecurityConfig {
 
         authProvider.setUserDetailsService(userDetailsService);
         authProvider.setPasswordEncoder(passwordEncoder());
+        // Rehash on login when the stored hash is outdated (older format or lower strength)
+        authProvider.setUserDetailsPasswordService(userDetailsService);
 
         return authProvider;
     }
@@ -46,9 +66,16 @@ public class WebSecurityConfig {
         return authConfig.getAuthenticationManager();
     }
 
-    @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    @Bean(destroyMethod = "shutdown")
+    public BoundedPasswordEncoder passwordEncoder() {
+        BCryptPasswordEncoder bcrypt = new BCryptPasswordEncoder(bcryptStrength);
+        Map<String, PasswordEncoder> encoders = new HashMap<>();
+        encoders.put("bcrypt", bcrypt);
+        DelegatingPasswordEncoder delegating = new DelegatingPasswordEncoder("bcrypt", encoders);
+        // Hashes stored before the {id} prefix was introduced are plain bcrypt; upgradeEncoding
+        // reports them as outdated, so they are rewritten with the prefix on the next login
+        delegating.setDefaultPasswordEncoderForMatches(bcrypt);
+        return new BoundedPasswordEncoder(delegating, hashingThreads, hashingQueue, hashingTimeoutMs);
     }
 
     @Bean
@@ -59,6 +86,8 @@ public class WebSecurityConfig {
                 .authorizeRequests().antMatchers("/api/auth/**").permitAll()
                 .antMatchers("/api/test/**").permitAll()
                 .antMatchers("/swagger-ui/**", "/v3/api-docs/**").permitAll()
+                // Scraped without a JWT; these are only served on management.server.port, never on the API port
+                .antMatchers("/actuator/health", "/actuator/prometheus").permitAll()
                 .anyRequest().authenticated();
 
         http.authenticationProvider(authenticationProvider());
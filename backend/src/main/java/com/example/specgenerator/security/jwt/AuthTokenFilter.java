@@ -1,6 +1,8 @@
 package com.example.specgenerator.security.jwt;
 
 import com.example.specgenerator.security.services.UserDetailsServiceImpl;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -11,11 +13,13 @@ import org.springframework.security.web.authentication.WebAuthenticationDetailsS
 import org.springframework.util.StringUtils;
 import org.springframework.web.filter.OncePerRequestFilter;
 
+import javax.annotation.PostConstruct;
 import javax.servlet.FilterChain;
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
+import java.util.concurrent.TimeUnit;
 
 public class AuthTokenFilter extends OncePerRequestFilter {
     @Autowired
@@ -24,30 +28,59 @@ public class AuthTokenFilter extends OncePerRequestFilter {
     @Autowired
     private UserDetailsServiceImpl userDetailsService;
 
+    @Autowired
+    private MeterRegistry meterRegistry;
+
     private static final Logger logger = LoggerFactory.getLogger(AuthTokenFilter.class);
 
+    // Time spent authenticating the request, not the rest of the chain
+    private Timer authenticatedTimer;
+    private Timer anonymousTimer;
+    private Timer failedTimer;
+
+    @PostConstruct
+    public void initTimers() {
+        authenticatedTimer = filterTimer("authenticated");
+        anonymousTimer = filterTimer("anonymous");
+        failedTimer = filterTimer("failed");
+    }
+
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
             throws ServletException, IOException {
+        long start = System.nanoTime();
+        Timer timer = anonymousTimer;
         try {
             String jwt = parseJwt(request);
-            if (jwt != null && jwtUtils.validateJwtToken(jwt)) {
-                String username = jwtUtils.getUserNameFromJwtToken(jwt);
-
-                UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+            String username = jwt != null ? jwtUtils.getVerifiedSubject(jwt) : null;
+            if (jwt != null && username == null) {
+                timer = failedTimer;
+            }
+            if (username != null) {
+                UserDetails userDetails = userDetailsService.loadPrincipal(username);
                 UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
                         userDetails, null, userDetails.getAuthorities());
                 authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
 
                 SecurityContextHolder.getContext().setAuthentication(authentication);
+                timer = authenticatedTimer;
             }
         } catch (Exception e) {
+            timer = failedTimer;
             logger.error("Cannot set user authentication: {}", e);
         }
+        timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
 
         filterChain.doFilter(request, response);
     }
 
+    private Timer filterTimer(String outcome) {
+        return Timer.builder("auth.jwt.filter")
+                .description("JWT verification and principal lookup per request")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
     private String parseJwt(HttpServletRequest request) {
         String headerAuth = request.getHeader("Authorization");
 
@@ -9,9 +9,11 @@ import org.springframework.security.core.Authentication;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 
+import javax.annotation.PostConstruct;
 import java.security.Key;
 import java.nio.charset.StandardCharsets;
 import java.util.Date;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Component
 public class JwtUtils {
@@ -23,8 +25,21 @@ public class JwtUtils {
     @Value("${app.jwt.expiration-ms}")
     private int jwtExpirationMs;
 
-    private Key getSigningKey() {
-        return Keys.hmacShaKeyFor(jwtSecret.getBytes(StandardCharsets.UTF_8));
+    // Upper bound on remembered tokens; tokens are only ever added after a full signature check
+    @Value("${app.jwt.verified-cache-size:10000}")
+    private int verifiedCacheSize;
+
+    // Key and parser are immutable and thread-safe, so they are built once
+    private Key signingKey;
+
+    private JwtParser parser;
+
+    private final ConcurrentHashMap<String, VerifiedToken> verified = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        signingKey = Keys.hmacShaKeyFor(jwtSecret.getBytes(StandardCharsets.UTF_8));
+        parser = Jwts.parserBuilder().setSigningKey(signingKey).build();
     }
 
     public String generateJwtToken(Authentication authentication) {
@@ -34,19 +49,39 @@ public class JwtUtils {
                 .setSubject((userPrincipal.getUsername()))
                 .setIssuedAt(new Date())
                 .setExpiration(new Date((new Date()).getTime() + jwtExpirationMs))
-                .signWith(getSigningKey(), SignatureAlgorithm.HS256)
+                .signWith(signingKey, SignatureAlgorithm.HS256)
                 .compact();
     }
 
-    public String getUserNameFromJwtToken(String token) {
-        return Jwts.parserBuilder().setSigningKey(getSigningKey()).build()
-                .parseClaimsJws(token).getBody().getSubject();
+    /**
+     * Verifies the token once and returns its subject, or {@code null} if it is invalid.
+     * Tokens seen before are answered from a bounded cache until they expire, so repeated
+     * requests with the same bearer token skip parsing and the HMAC check.
+     */
+    public String getVerifiedSubject(String token) {
+        long now = System.currentTimeMillis();
+        VerifiedToken cached = verified.get(token);
+        if (cached != null) {
+            if (cached.expiresAt > now) {
+                return cached.subject;
+            }
+            verified.remove(token, cached);
+        }
+
+        Claims claims = parseClaims(token);
+        if (claims == null) {
+            return null;
+        }
+
+        if (claims.getExpiration() != null) {
+            remember(token, new VerifiedToken(claims.getSubject(), claims.getExpiration().getTime()), now);
+        }
+        return claims.getSubject();
     }
 
-    public boolean validateJwtToken(String authToken) {
+    private Claims parseClaims(String authToken) {
         try {
-            Jwts.parserBuilder().setSigningKey(getSigningKey()).build().parseClaimsJws(authToken);
-            return true;
+            return parser.parseClaimsJws(authToken).getBody();
         } catch (SecurityException e) {
             logger.error("Invalid JWT signature: {}", e.getMessage());
         } catch (MalformedJwtException e) {
@@ -59,6 +94,27 @@ public class JwtUtils {
             logger.error("JWT claims string is empty: {}", e.getMessage());
         }
 
-        return false;
+        return null;
+    }
+
+    private void remember(String token, VerifiedToken entry, long now) {
+        if (verified.size() >= verifiedCacheSize) {
+            verified.values().removeIf(v -> v.expiresAt <= now);
+            if (verified.size() >= verifiedCacheSize) {
+                // Still full of live tokens: start over rather than track recency on the hot path
+                verified.clear();
+            }
+        }
+        verified.put(token, entry);
+    }
+
+    private static final class VerifiedToken {
+        final String subject;
+        final long expiresAt;
+
+        VerifiedToken(String subject, long expiresAt) {
+            this.subject = subject;
+            this.expiresAt = expiresAt;
+        }
     }
 }
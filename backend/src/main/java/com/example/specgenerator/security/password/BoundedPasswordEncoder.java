@@ -0,0 +1,177 @@
+package com.example.specgenerator.security.password;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Runs the CPU-heavy part of a password encoder (encode and matches) on a small pool of
+ * its own instead of on the calling servlet thread.
+ * <p>
+ * At most {@code threads} hashes run at once, so a login storm cannot take every core
+ * from the rest of the API. Callers still wait for their result, but only
+ * {@code threads + queueCapacity} of them at a time: anyone beyond that, or anyone who
+ * waits longer than the timeout, gets a {@link PasswordHashingBusyException} straight away
+ * and gives the servlet thread back.
+ */
+public class BoundedPasswordEncoder implements PasswordEncoder, MeterBinder {
+
+    private final PasswordEncoder delegate;
+
+    private final ThreadPoolExecutor executor;
+
+    private final long timeoutMs;
+
+    private final Timing encodeTiming = new Timing();
+
+    private final Timing matchesTiming = new Timing();
+
+    private final AtomicLong rejected = new AtomicLong();
+
+    private final AtomicLong timedOut = new AtomicLong();
+
+    public BoundedPasswordEncoder(PasswordEncoder delegate, int threads, int queueCapacity, long timeoutMs) {
+        this.delegate = delegate;
+        this.timeoutMs = timeoutMs;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), r -> {
+                    Thread t = new Thread(r, "password-hash-" + threadCount.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                }, new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return run(encodeTiming, () -> delegate.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return run(matchesTiming, () -> delegate.matches(rawPassword, encodedPassword));
+    }
+
+    // Only inspects the stored hash, cheap enough for the calling thread
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("threads", executor.getMaximumPoolSize());
+        result.put("active", executor.getActiveCount());
+        result.put("queued", executor.getQueue().size());
+        result.put("queueCapacity", executor.getQueue().size() + executor.getQueue().remainingCapacity());
+        result.put("rejected", rejected.get());
+        result.put("timedOut", timedOut.get());
+        result.put("encode", encodeTiming.toMap());
+        result.put("matches", matchesTiming.toMap());
+        return result;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("auth.password.hashing.active", executor, ThreadPoolExecutor::getActiveCount).register(registry);
+        Gauge.builder("auth.password.hashing.queued", executor, e -> e.getQueue().size()).register(registry);
+        FunctionCounter.builder("auth.password.hashing.rejected", rejected, AtomicLong::get)
+                .tag("reason", "busy").register(registry);
+        FunctionCounter.builder("auth.password.hashing.rejected", timedOut, AtomicLong::get)
+                .tag("reason", "timeout").register(registry);
+        encodeTiming.bindTo(registry, "encode");
+        matchesTiming.bindTo(registry, "matches");
+    }
+
+    private <T> T run(Timing timing, Callable<T> work) {
+        long submitted = System.nanoTime();
+        Future<T> future;
+        try {
+            future = executor.submit(() -> {
+                long started = System.nanoTime();
+                try {
+                    return work.call();
+                } finally {
+                    timing.record(started - submitted, System.nanoTime() - started);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rejected.incrementAndGet();
+            throw new PasswordHashingBusyException("錯誤：登入人數眾多，請稍後再試");
+        }
+
+        try {
+            return future.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            timedOut.incrementAndGet();
+            throw new PasswordHashingBusyException("錯誤：登入人數眾多，請稍後再試");
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new PasswordHashingBusyException("錯誤：登入已中斷，請稍後再試");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    // Queue wait and hashing time of one operation, for tuning the work factor against the login SLO
+    private static final class Timing {
+        private final LongAdder count = new LongAdder();
+        private final LongAdder waitNanos = new LongAdder();
+        private final LongAdder runNanos = new LongAdder();
+        private final AtomicLong maxWaitNanos = new AtomicLong();
+        private final AtomicLong maxRunNanos = new AtomicLong();
+
+        void record(long waited, long ran) {
+            count.increment();
+            waitNanos.add(waited);
+            runNanos.add(ran);
+            maxWaitNanos.accumulateAndGet(waited, Math::max);
+            maxRunNanos.accumulateAndGet(ran, Math::max);
+        }
+
+        void bindTo(MeterRegistry registry, String operation) {
+            FunctionTimer.builder("auth.password.hashing", this, t -> t.count.sum(), t -> t.runNanos.sum(),
+                    TimeUnit.NANOSECONDS).tag("operation", operation).register(registry);
+            FunctionTimer.builder("auth.password.hashing.queue", this, t -> t.count.sum(), t -> t.waitNanos.sum(),
+                    TimeUnit.NANOSECONDS).tag("operation", operation).register(registry);
+        }
+
+        Map<String, Object> toMap() {
+            long n = count.sum();
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("count", n);
+            result.put("avgMs", n == 0 ? 0 : runNanos.sum() / n / 1_000_000.0);
+            result.put("maxMs", maxRunNanos.get() / 1_000_000.0);
+            result.put("avgQueueMs", n == 0 ? 0 : waitNanos.sum() / n / 1_000_000.0);
+            result.put("maxQueueMs", maxWaitNanos.get() / 1_000_000.0);
+            return result;
+        }
+    }
+}
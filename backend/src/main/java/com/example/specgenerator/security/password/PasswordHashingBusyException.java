@@ -0,0 +1,25 @@
+package com.example.specgenerator.security.password;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * The password hashing pool is full or did not get to the request in time. Rendered as
+ * 503 with a Retry-After header so clients back off instead of piling on more logins.
+ */
+public class PasswordHashingBusyException extends ResponseStatusException {
+
+    private static final long RETRY_AFTER_SECONDS = 2;
+
+    public PasswordHashingBusyException(String reason) {
+        super(HttpStatus.SERVICE_UNAVAILABLE, reason);
+    }
+
+    @Override
+    public HttpHeaders getResponseHeaders() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.RETRY_AFTER, String.valueOf(RETRY_AFTER_SECONDS));
+        return headers;
+    }
+}
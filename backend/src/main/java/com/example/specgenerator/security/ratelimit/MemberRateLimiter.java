@@ -0,0 +1,131 @@
+package com.example.specgenerator.security.ratelimit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-member, per-endpoint token buckets for the AI endpoints.
+ * <p>
+ * Buckets live in a {@link ConcurrentHashMap} (lock-free reads, per-bin locking only on
+ * first insert) and are themselves lock-free. Buckets that have refilled and been idle
+ * for {@code app.rate-limit.idle-evict-ms} are swept, so memory is bounded by the number
+ * of recently active members rather than by everyone who ever called.
+ */
+@Component
+public class MemberRateLimiter {
+
+    public static final String GENERATE = "generate";
+    public static final String REFINE = "refine";
+
+    @Value("${app.rate-limit.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.rate-limit.generate.capacity:10}")
+    private long generateCapacity;
+
+    @Value("${app.rate-limit.generate.refill-per-minute:5}")
+    private double generateRefillPerMinute;
+
+    @Value("${app.rate-limit.refine.capacity:30}")
+    private long refineCapacity;
+
+    @Value("${app.rate-limit.refine.refill-per-minute:20}")
+    private double refineRefillPerMinute;
+
+    @Value("${app.rate-limit.idle-evict-ms:600000}")
+    private long idleEvictMs;
+
+    private final Map<String, Limit> limits = new LinkedHashMap<>();
+
+    private final ConcurrentHashMap<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+
+    private final AtomicLong allowed = new AtomicLong();
+    private final AtomicLong throttled = new AtomicLong();
+    private final AtomicLong evicted = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        limits.put(GENERATE, new Limit(generateCapacity, generateRefillPerMinute / 60d));
+        limits.put(REFINE, new Limit(refineCapacity, refineRefillPerMinute / 60d));
+    }
+
+    /**
+     * @return 0 if the call may proceed, otherwise the seconds to wait before retrying
+     */
+    public long tryAcquire(String endpoint, String member) {
+        return tryAcquire(endpoint, member, 1);
+    }
+
+    /**
+     * Charges {@code permits} calls at once (one per item of a batch); either all of them
+     * are granted or none.
+     *
+     * @return 0 if the calls may proceed, -1 if they exceed the bucket capacity and never
+     *         will, otherwise the seconds to wait before retrying
+     */
+    public long tryAcquire(String endpoint, String member, long permits) {
+        Limit limit = limits.get(endpoint);
+        if (!enabled || limit == null) {
+            return 0;
+        }
+
+        long now = System.nanoTime();
+        TokenBucket bucket = buckets.computeIfAbsent(endpoint + ":" + member,
+                k -> new TokenBucket(limit.capacity, limit.refillPerSecond, now));
+        long waitNanos = bucket.tryConsume(now, permits);
+        if (waitNanos == 0) {
+            allowed.addAndGet(permits);
+            return 0;
+        }
+        throttled.incrementAndGet();
+        if (waitNanos < 0) {
+            return -1;
+        }
+        return Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + 999_999_999L));
+    }
+
+    public long getCapacity(String endpoint) {
+        Limit limit = limits.get(endpoint);
+        return limit == null ? 0 : limit.capacity;
+    }
+
+    @Scheduled(fixedDelayString = "${app.rate-limit.sweep-interval-ms:60000}")
+    public void evictIdle() {
+        long now = System.nanoTime();
+        long idleNanos = TimeUnit.MILLISECONDS.toNanos(idleEvictMs);
+        buckets.entrySet().removeIf(e -> {
+            if (e.getValue().isIdle(now, idleNanos)) {
+                evicted.incrementAndGet();
+                return true;
+            }
+            return false;
+        });
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("buckets", buckets.size());
+        stats.put("allowed", allowed.get());
+        stats.put("throttled", throttled.get());
+        stats.put("evicted", evicted.get());
+        return stats;
+    }
+
+    private static class Limit {
+        final long capacity;
+        final double refillPerSecond;
+
+        Limit(long capacity, double refillPerSecond) {
+            this.capacity = capacity;
+            this.refillPerSecond = refillPerSecond;
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.specgenerator.security.ratelimit;
+
+import com.example.specgenerator.payload.response.MessageResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Applies {@link MemberRateLimiter} to the AI endpoints, keyed by the principal that
+ * AuthTokenFilter put into the security context. Throttled calls get 429 + Retry-After.
+ */
+@Component
+public class RateLimitInterceptor implements HandlerInterceptor {
+
+    @Autowired
+    private MemberRateLimiter rateLimiter;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler)
+            throws Exception {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !authentication.isAuthenticated()) {
+            return true; // security already rejects anonymous calls to these paths
+        }
+
+        String endpoint = request.getRequestURI().contains("/refine") ? MemberRateLimiter.REFINE
+                : MemberRateLimiter.GENERATE;
+        long retryAfterSeconds = rateLimiter.tryAcquire(endpoint, authentication.getName());
+        if (retryAfterSeconds == 0) {
+            return true;
+        }
+
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        objectMapper.writeValue(response.getWriter(),
+                new MessageResponse("錯誤：請求過於頻繁，請於 " + retryAfterSeconds + " 秒後再試。"));
+        return false;
+    }
+}
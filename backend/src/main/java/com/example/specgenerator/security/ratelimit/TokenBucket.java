@@ -0,0 +1,87 @@
+package com.example.specgenerator.security.ratelimit;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Lock-free token bucket. The token count and the time it was last updated are kept
+ * in one immutable snapshot swapped with CAS, so concurrent requests never block each
+ * other and refill is computed lazily from elapsed time.
+ */
+public class TokenBucket {
+
+    // Tokens are tracked in millionths so slow refill rates do not round down to zero
+    private static final long SCALE = 1_000_000L;
+
+    private final long capacity;
+
+    private final double refillPerNano;
+
+    private final AtomicReference<State> state;
+
+    public TokenBucket(long capacity, double refillPerSecond, long nowNanos) {
+        this.capacity = capacity * SCALE;
+        this.refillPerNano = refillPerSecond * SCALE / 1_000_000_000d;
+        this.state = new AtomicReference<>(new State(this.capacity, nowNanos));
+    }
+
+    /**
+     * Takes one token if available.
+     *
+     * @return 0 when a token was taken, otherwise the nanoseconds until one will be available
+     */
+    public long tryConsume(long nowNanos) {
+        return tryConsume(nowNanos, 1);
+    }
+
+    /**
+     * Takes {@code permits} tokens at once, or none at all.
+     *
+     * @return 0 when the tokens were taken, -1 if {@code permits} exceeds the capacity and
+     *         can never be granted, otherwise the nanoseconds until enough will be available
+     */
+    public long tryConsume(long nowNanos, long permits) {
+        long needed = permits * SCALE;
+        if (needed > capacity) {
+            return -1;
+        }
+        while (true) {
+            State current = state.get();
+            long tokens = refilled(current, nowNanos);
+            if (tokens < needed) {
+                return (long) Math.ceil((needed - tokens) / refillPerNano);
+            }
+            if (state.compareAndSet(current, new State(tokens - needed, Math.max(nowNanos, current.updatedNanos)))) {
+                return 0;
+            }
+        }
+    }
+
+    public double availableTokens(long nowNanos) {
+        return (double) refilled(state.get(), nowNanos) / SCALE;
+    }
+
+    /**
+     * A bucket that has refilled completely and sat unused for {@code idleNanos} holds
+     * no information a fresh bucket would not, so it can be dropped.
+     */
+    public boolean isIdle(long nowNanos, long idleNanos) {
+        State current = state.get();
+        return nowNanos - current.updatedNanos >= idleNanos && refilled(current, nowNanos) >= capacity;
+    }
+
+    private long refilled(State s, long nowNanos) {
+        long elapsed = Math.max(0, nowNanos - s.updatedNanos);
+        double tokens = s.tokens + elapsed * refillPerNano;
+        return tokens >= capacity ? capacity : (long) tokens;
+    }
+
+    private static final class State {
+        final long tokens;
+        final long updatedNanos;
+
+        State(long tokens, long updatedNanos) {
+            this.tokens = tokens;
+            this.updatedNanos = updatedNanos;
+        }
+    }
+}
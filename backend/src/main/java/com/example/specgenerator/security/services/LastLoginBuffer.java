@@ -0,0 +1,90 @@
+package com.example.specgenerator.security.services;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Write-behind buffer for member.last_login_at.
+ * <p>
+ * Sign-in only records the time in memory, keeping the latest one per member, and the
+ * pending times are written periodically as one JDBC batch of UPDATEs, in id order so
+ * concurrent flushes from several instances lock rows in the same order. The buffer is
+ * flushed once more on shutdown; a crash loses at most one interval of login times, and
+ * an older time never overwrites a newer one already stored.
+ */
+@Component
+public class LastLoginBuffer implements MeterBinder {
+
+    private static final Logger logger = LoggerFactory.getLogger(LastLoginBuffer.class);
+
+    private static final String UPDATE_SQL = "UPDATE member SET last_login_at = ? "
+            + "WHERE id = ? AND (last_login_at IS NULL OR last_login_at < ?)";
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    private final ConcurrentHashMap<Long, LocalDateTime> pending = new ConcurrentHashMap<>();
+
+    public void record(Long memberId, LocalDateTime loginAt) {
+        pending.merge(memberId, loginAt, (a, b) -> a.isAfter(b) ? a : b);
+    }
+
+    public int getPending() {
+        return pending.size();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("auth.last.login.pending", pending, Map::size).register(registry);
+    }
+
+    @Scheduled(fixedDelayString = "${app.last-login.flush-interval-ms:5000}", initialDelay = 5000)
+    public synchronized void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        // Entries are only removed if unchanged, so a login recorded meanwhile waits for the next flush
+        Map<Long, LocalDateTime> drained = new TreeMap<>();
+        for (Map.Entry<Long, LocalDateTime> entry : pending.entrySet()) {
+            if (pending.remove(entry.getKey(), entry.getValue())) {
+                drained.put(entry.getKey(), entry.getValue());
+            }
+        }
+        if (drained.isEmpty()) {
+            return;
+        }
+
+        List<Object[]> args = new ArrayList<>(drained.size());
+        for (Map.Entry<Long, LocalDateTime> entry : drained.entrySet()) {
+            Timestamp at = Timestamp.valueOf(entry.getValue());
+            args.add(new Object[] { at, entry.getKey(), at });
+        }
+        try {
+            jdbcTemplate.batchUpdate(UPDATE_SQL, args);
+        } catch (RuntimeException e) {
+            drained.forEach(this::record);
+            logger.warn("Could not write {} last login times, retrying on the next flush", drained.size(), e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.specgenerator.security.services;
+
+import com.example.specgenerator.model.Member;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.Collection;
+import java.util.Collections;
+
+/**
+ * Authenticated member as seen by Spring Security. Carries the member id so controllers
+ * do not have to look the member up by email again.
+ */
+public class MemberPrincipal implements UserDetails {
+
+    private final Long id;
+    private final String email;
+    private final String password;
+    private final Integer status;
+    private final Collection<? extends GrantedAuthority> authorities;
+
+    public MemberPrincipal(Long id, String email, String password, Integer status,
+            Collection<? extends GrantedAuthority> authorities) {
+        this.id = id;
+        this.email = email;
+        this.password = password;
+        this.status = status;
+        this.authorities = authorities;
+    }
+
+    public static MemberPrincipal of(Member member) {
+        // Defaults: role "USER" since schema doesn't have role table.
+        return new MemberPrincipal(member.getId(), member.getEmail(), member.getPassword(), member.getStatus(),
+                Collections.singletonList(new SimpleGrantedAuthority("ROLE_USER")));
+    }
+
+    // Copy without the password hash, for caching and for request-scoped authentication
+    public MemberPrincipal withoutPassword() {
+        return new MemberPrincipal(id, email, null, status, authorities);
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Integer getStatus() {
+        return status;
+    }
+
+    @Override
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return authorities;
+    }
+
+    @Override
+    public String getPassword() {
+        return password;
+    }
+
+    @Override
+    public String getUsername() {
+        return email;
+    }
+
+    @Override
+    public boolean isAccountNonExpired() {
+        return true;
+    }
+
+    @Override
+    public boolean isAccountNonLocked() {
+        return true;
+    }
+
+    @Override
+    public boolean isCredentialsNonExpired() {
+        return true;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return true;
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.specgenerator.security.services;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Short-lived cache of {@link MemberPrincipal}s by email, used by the JWT filter so an
+ * authenticated request does not hit the member table. Entries never hold the password
+ * hash. Anything that changes a member's credentials or profile must call
+ * {@link #invalidate(String)}.
+ */
+@Component
+public class MemberPrincipalCache {
+
+    @Value("${app.principal-cache.ttl-ms:300000}")
+    private long ttlMs;
+
+    @Value("${app.principal-cache.max-entries:10000}")
+    private int maxEntries;
+
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+
+    public MemberPrincipal get(String email) {
+        Entry entry = entries.get(email);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.expiresAt <= System.currentTimeMillis()) {
+            entries.remove(email, entry);
+            return null;
+        }
+        return entry.principal;
+    }
+
+    public void put(MemberPrincipal principal) {
+        long now = System.currentTimeMillis();
+        if (entries.size() >= maxEntries) {
+            entries.values().removeIf(e -> e.expiresAt <= now);
+            if (entries.size() >= maxEntries) {
+                entries.clear();
+            }
+        }
+        entries.put(principal.getUsername(), new Entry(principal.withoutPassword(), now + ttlMs));
+    }
+
+    public void invalidate(String email) {
+        if (email != null) {
+            entries.remove(email);
+        }
+    }
+
+    private static final class Entry {
+        final MemberPrincipal principal;
+        final long expiresAt;
+
+        Entry(MemberPrincipal principal, long expiresAt) {
+            this.principal = principal;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
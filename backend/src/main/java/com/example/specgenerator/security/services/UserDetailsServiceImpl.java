@@ -4,16 +4,21 @@ import com.example.specgenerator.model.Member;
 import com.example.specgenerator.repository.MemberRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 @Service
-public class UserDetailsServiceImpl implements UserDetailsService {
+public class UserDetailsServiceImpl implements UserDetailsService, UserDetailsPasswordService {
     @Autowired
     MemberRepository memberRepository;
 
+    @Autowired
+    MemberPrincipalCache principalCache;
+
+    // Used for sign-in: always reads the current password hash from the database
     @Override
     @Transactional
     public UserDetails loadUserByUsername(String email) throws UsernameNotFoundException {
@@ -21,11 +26,34 @@ public class UserDetailsServiceImpl implements UserDetailsService {
                 .orElseThrow(() -> new UsernameNotFoundException("User Not Found with email: " + email));
 
         // Mapping Member to UserDetails
-        // Defaults: role "USER" since schema doesn't have role table.
-        return org.springframework.security.core.userdetails.User.builder()
-                .username(member.getEmail())
-                .password(member.getPassword())
-                .roles("USER")
-                .build();
+        MemberPrincipal principal = MemberPrincipal.of(member);
+        principalCache.put(principal);
+        return principal;
+    }
+
+    /**
+     * Stores the rehashed password after a successful login with an outdated hash. The
+     * update only applies if the hash is still the one that was just verified, so a
+     * password change racing the login is never overwritten with the old password.
+     */
+    @Override
+    @Transactional
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        if (memberRepository.updatePasswordIfUnchanged(user.getUsername(), user.getPassword(), newPassword) == 0) {
+            return user;
+        }
+        principalCache.invalidate(user.getUsername());
+        MemberPrincipal principal = (MemberPrincipal) user;
+        return new MemberPrincipal(principal.getId(), principal.getUsername(), newPassword, principal.getStatus(),
+                principal.getAuthorities());
+    }
+
+    // Used per request by the JWT filter; served from the principal cache when possible
+    public MemberPrincipal loadPrincipal(String email) throws UsernameNotFoundException {
+        MemberPrincipal cached = principalCache.get(email);
+        if (cached != null) {
+            return cached;
+        }
+        return ((MemberPrincipal) loadUserByUsername(email)).withoutPassword();
     }
 }
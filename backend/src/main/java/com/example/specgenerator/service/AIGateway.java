@@ -0,0 +1,242 @@
+package com.example.specgenerator.service;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.ResourceAccessException;
+
+import javax.annotation.PostConstruct;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Resilience layer in front of every Gemini call: an adaptive concurrency limit, a
+ * circuit breaker and retries with jittered exponential backoff that honour Retry-After.
+ * <p>
+ * When the limit is reached or the breaker is open, calls fail immediately with
+ * {@link AIUnavailableException} (503) instead of queueing request threads behind a slow
+ * upstream.
+ */
+@Component
+public class AIGateway implements MeterBinder {
+
+    private static final Logger logger = LoggerFactory.getLogger(AIGateway.class);
+
+    @Value("${gemini.gateway.initial-limit:10}")
+    private int initialLimit;
+
+    @Value("${gemini.gateway.min-limit:2}")
+    private int minLimit;
+
+    @Value("${gemini.gateway.max-limit:50}")
+    private int maxLimit;
+
+    @Value("${gemini.gateway.backoff-ratio:0.9}")
+    private double backoffRatio;
+
+    @Value("${gemini.gateway.latency-threshold-ms:45000}")
+    private long latencyThresholdMs;
+
+    @Value("${gemini.gateway.breaker.window-size:20}")
+    private int breakerWindowSize;
+
+    @Value("${gemini.gateway.breaker.minimum-calls:10}")
+    private int breakerMinimumCalls;
+
+    @Value("${gemini.gateway.breaker.failure-rate:0.5}")
+    private double breakerFailureRate;
+
+    @Value("${gemini.gateway.breaker.open-ms:30000}")
+    private long breakerOpenMs;
+
+    @Value("${gemini.gateway.breaker.half-open-probes:1}")
+    private int breakerHalfOpenProbes;
+
+    @Value("${gemini.gateway.retry.max-retries:2}")
+    private int maxRetries;
+
+    @Value("${gemini.gateway.retry.base-delay-ms:500}")
+    private long baseDelayMs;
+
+    @Value("${gemini.gateway.retry.max-delay-ms:8000}")
+    private long maxDelayMs;
+
+    // A Retry-After longer than this is not waited out; the caller gets the failure instead
+    @Value("${gemini.gateway.retry.max-retry-after-ms:15000}")
+    private long maxRetryAfterMs;
+
+    private AdaptiveConcurrencyLimiter limiter;
+
+    private CircuitBreaker breaker;
+
+    private final AtomicLong retries = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        limiter = new AdaptiveConcurrencyLimiter(initialLimit, minLimit, maxLimit, backoffRatio, latencyThresholdMs);
+        breaker = new CircuitBreaker(breakerWindowSize, breakerMinimumCalls, breakerFailureRate, breakerOpenMs,
+                breakerHalfOpenProbes);
+    }
+
+    public <T> T execute(Supplier<T> call) {
+        return execute(call, true);
+    }
+
+    /**
+     * @param retryable whether failed attempts may be repeated; streaming calls pass
+     *                  {@code false} because output may already have reached the client
+     */
+    public <T> T execute(Supplier<T> call, boolean retryable) {
+        for (int attempt = 0;; attempt++) {
+            acquire();
+
+            long start = System.nanoTime();
+            try {
+                T result = call.get();
+                limiter.onSuccess((System.nanoTime() - start) / 1_000_000L);
+                breaker.onSuccess();
+                return result;
+            } catch (RuntimeException e) {
+                if (!isUpstreamFailure(e)) {
+                    limiter.onIgnored();
+                    breaker.onIgnored();
+                    throw e;
+                }
+
+                limiter.onDropped();
+                breaker.onFailure();
+
+                long delayMs = retryable && attempt < maxRetries ? backoffDelayMs(e, attempt) : -1;
+                if (delayMs < 0) {
+                    throw e;
+                }
+                retries.incrementAndGet();
+                logger.warn("Gemini call failed ({}), retrying in {} ms", e.getMessage(), delayMs);
+                sleep(delayMs);
+            }
+        }
+    }
+
+    public int getLimit() {
+        return limiter.getLimit();
+    }
+
+    public boolean isAcceptingCalls() {
+        return breaker.getState() != CircuitBreaker.State.OPEN && limiter.getInFlight() < limiter.getLimit();
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("limit", limiter.getLimit());
+        stats.put("inFlight", limiter.getInFlight());
+        stats.put("limiterRejected", limiter.getRejected());
+        stats.put("breakerState", breaker.getState().name());
+        stats.put("breakerFailureRate", breaker.getFailureRate());
+        stats.put("breakerOpened", breaker.getOpened());
+        stats.put("breakerRejected", breaker.getRejected());
+        stats.put("retries", retries.get());
+        return stats;
+    }
+
+    // The getStats() values as meters; read at scrape time, nothing is added to the call path
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("ai.gateway.limit", limiter, AdaptiveConcurrencyLimiter::getLimit)
+                .description("Current adaptive concurrency limit for Gemini calls")
+                .register(registry);
+        Gauge.builder("ai.gateway.in.flight", limiter, AdaptiveConcurrencyLimiter::getInFlight)
+                .register(registry);
+        for (CircuitBreaker.State state : CircuitBreaker.State.values()) {
+            Gauge.builder("ai.gateway.breaker.state", breaker, b -> b.getState() == state ? 1 : 0)
+                    .tag("state", state.name())
+                    .register(registry);
+        }
+        FunctionCounter.builder("ai.gateway.rejected", limiter, AdaptiveConcurrencyLimiter::getRejected)
+                .tag("reason", "limit")
+                .register(registry);
+        FunctionCounter.builder("ai.gateway.rejected", breaker, CircuitBreaker::getRejected)
+                .tag("reason", "breaker")
+                .register(registry);
+        FunctionCounter.builder("ai.gateway.breaker.opened", breaker, CircuitBreaker::getOpened)
+                .register(registry);
+        FunctionCounter.builder("ai.gateway.retries", retries, AtomicLong::get)
+                .register(registry);
+    }
+
+    private void acquire() {
+        if (!limiter.tryAcquire()) {
+            throw new AIUnavailableException("AI service is at capacity, please retry shortly", 1);
+        }
+        if (!breaker.tryAcquire()) {
+            limiter.onIgnored();
+            throw new AIUnavailableException("AI service is temporarily unavailable",
+                    (breaker.getRetryAfterMs() + 999) / 1000);
+        }
+    }
+
+    private boolean isUpstreamFailure(RuntimeException e) {
+        if (e instanceof ResourceAccessException) {
+            return true; // connect/read timeout, connection reset, aborted by deadline
+        }
+        if (e instanceof HttpStatusCodeException) {
+            int status = ((HttpStatusCodeException) e).getRawStatusCode();
+            return status == 429 || status >= 500;
+        }
+        return false;
+    }
+
+    private long backoffDelayMs(RuntimeException e, int attempt) {
+        // Full jitter: uniform in [0, min(max, base * 2^attempt)]
+        long ceiling = Math.min(maxDelayMs, baseDelayMs << Math.min(attempt, 20));
+        long jittered = ThreadLocalRandom.current().nextLong(ceiling + 1);
+
+        long retryAfterMs = retryAfterMs(e);
+        if (retryAfterMs > maxRetryAfterMs) {
+            return -1;
+        }
+        return Math.max(jittered, retryAfterMs);
+    }
+
+    private long retryAfterMs(RuntimeException e) {
+        if (!(e instanceof HttpStatusCodeException)) {
+            return 0;
+        }
+        HttpHeaders headers = ((HttpStatusCodeException) e).getResponseHeaders();
+        String value = headers == null ? null : headers.getFirst(HttpHeaders.RETRY_AFTER);
+        if (value == null || value.trim().isEmpty()) {
+            return 0;
+        }
+        try {
+            return Long.parseLong(value.trim()) * 1000L;
+        } catch (NumberFormatException notSeconds) {
+            try {
+                ZonedDateTime at = ZonedDateTime.parse(value.trim(), DateTimeFormatter.RFC_1123_DATE_TIME);
+                return Math.max(0, Duration.between(ZonedDateTime.now(at.getZone()), at).toMillis());
+            } catch (Exception ignored) {
+                return 0;
+            }
+        }
+    }
+
+    private void sleep(long delayMs) {
+        try {
+            Thread.sleep(delayMs);
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new AIUnavailableException("Interrupted while waiting to retry", 1);
+        }
+    }
+}
@@ -0,0 +1,242 @@
+package com.example.specgenerator.service;
+
+import com.example.specgenerator.model.AIResponseCacheEntry;
+import com.example.specgenerator.repository.AIResponseCacheRepository;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.text.Normalizer;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Two-tier cache of successful model responses.
+ * <p>
+ * The memory tier is an access-ordered LRU bounded by entry count and total characters,
+ * with a TTL per entry. The optional persistent tier lives in {@code ai_response_cache}
+ * so hits survive restarts; persistent hits are promoted back into memory.
+ * Only callers that got real model text should {@link #put} it - error strings never reach here.
+ */
+@Component
+public class AIResponseCache implements MeterBinder {
+
+    private static final Logger logger = LoggerFactory.getLogger(AIResponseCache.class);
+
+    @Autowired
+    AIResponseCacheRepository cacheRepository;
+
+    @Value("${app.ai-cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.ai-cache.max-entries:1000}")
+    private int maxEntries;
+
+    @Value("${app.ai-cache.max-chars:20000000}")
+    private long maxChars;
+
+    @Value("${app.ai-cache.ttl-ms:86400000}")
+    private long ttlMs;
+
+    @Value("${app.ai-cache.persistent:true}")
+    private boolean persistent;
+
+    private final LinkedHashMap<String, Entry> memory = new LinkedHashMap<>(16, 0.75f, true);
+
+    private long memoryChars;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong persistentHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong expirations = new AtomicLong();
+
+    // For free-text requirements only: whitespace-only differences (re-pasted text, trailing
+    // newlines) then give the same key. Never apply it to code, YAML or SQL.
+    public static String normalize(String text) {
+        return Normalizer.normalize(text, Normalizer.Form.NFC).trim().replaceAll("\\s+", " ");
+    }
+
+    /**
+     * Prompts built from a free-text requirement are keyed on their normalized text, so a
+     * re-pasted requirement still hits while the model sees it as typed. Other prompts embed
+     * documents where indentation matters and are keyed exactly.
+     */
+    public static String keyFor(String model, String templateVersion, String prompt, boolean freeText) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(model.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(templateVersion.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            byte[] hash = digest.digest((freeText ? normalize(prompt) : prompt).getBytes(StandardCharsets.UTF_8));
+
+            StringBuilder hex = new StringBuilder(hash.length * 2);
+            for (byte b : hash) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public String get(String key) {
+        if (!enabled) {
+            return null;
+        }
+
+        long now = System.currentTimeMillis();
+        synchronized (this) {
+            Entry entry = memory.get(key);
+            if (entry != null) {
+                if (entry.expiresAt > now) {
+                    hits.incrementAndGet();
+                    return entry.value;
+                }
+                remove(key);
+                expirations.incrementAndGet();
+            }
+        }
+
+        if (persistent) {
+            try {
+                AIResponseCacheEntry stored = cacheRepository.findById(key).orElse(null);
+                if (stored != null && stored.getExpiresAt().isAfter(LocalDateTime.now())) {
+                    persistentHits.incrementAndGet();
+                    putInMemory(key, stored.getResponse());
+                    return stored.getResponse();
+                }
+            } catch (Exception e) {
+                logger.warn("AI response cache lookup failed: {}", e.getMessage());
+            }
+        }
+
+        misses.incrementAndGet();
+        return null;
+    }
+
+    public void put(String key, String model, String value) {
+        if (!enabled || value == null || value.trim().isEmpty()) {
+            return;
+        }
+
+        putInMemory(key, value);
+
+        if (persistent) {
+            try {
+                AIResponseCacheEntry entry = new AIResponseCacheEntry();
+                entry.setCacheKey(key);
+                entry.setModel(model);
+                entry.setResponse(value);
+                entry.setExpiresAt(LocalDateTime.now().plusNanos(ttlMs * 1_000_000L));
+                cacheRepository.save(entry);
+            } catch (Exception e) {
+                logger.warn("AI response cache write failed: {}", e.getMessage());
+            }
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        synchronized (this) {
+            stats.put("entries", memory.size());
+            stats.put("chars", memoryChars);
+        }
+        stats.put("hits", hits.get());
+        stats.put("persistentHits", persistentHits.get());
+        stats.put("misses", misses.get());
+        stats.put("evictions", evictions.get());
+        stats.put("expirations", expirations.get());
+        return stats;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("ai.cache.requests", hits, AtomicLong::get).tag("result", "hit").register(registry);
+        FunctionCounter.builder("ai.cache.requests", persistentHits, AtomicLong::get).tag("result", "persistent_hit")
+                .register(registry);
+        FunctionCounter.builder("ai.cache.requests", misses, AtomicLong::get).tag("result", "miss").register(registry);
+        FunctionCounter.builder("ai.cache.evictions", evictions, AtomicLong::get).register(registry);
+        Gauge.builder("ai.cache.size", this, cache -> {
+            synchronized (cache) {
+                return cache.memory.size();
+            }
+        }).register(registry);
+    }
+
+    @Scheduled(fixedDelayString = "${app.ai-cache.purge-interval-ms:3600000}")
+    public void purgeExpired() {
+        if (!enabled) {
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+        synchronized (this) {
+            Iterator<Map.Entry<String, Entry>> it = memory.entrySet().iterator();
+            while (it.hasNext()) {
+                Map.Entry<String, Entry> e = it.next();
+                if (e.getValue().expiresAt <= now) {
+                    memoryChars -= e.getValue().value.length();
+                    it.remove();
+                    expirations.incrementAndGet();
+                }
+            }
+        }
+
+        if (persistent) {
+            int removed = cacheRepository.deleteExpired(LocalDateTime.now());
+            if (removed > 0) {
+                logger.info("Purged {} expired AI response cache rows", removed);
+            }
+        }
+    }
+
+    private synchronized void putInMemory(String key, String value) {
+        remove(key);
+        memory.put(key, new Entry(value, System.currentTimeMillis() + ttlMs));
+        memoryChars += value.length();
+
+        // Iteration order is least-recently-used first
+        Iterator<Map.Entry<String, Entry>> it = memory.entrySet().iterator();
+        while ((memory.size() > maxEntries || memoryChars > maxChars) && it.hasNext()) {
+            Map.Entry<String, Entry> eldest = it.next();
+            if (eldest.getKey().equals(key)) {
+                continue; // never evict what we just inserted
+            }
+            memoryChars -= eldest.getValue().value.length();
+            it.remove();
+            evictions.incrementAndGet();
+        }
+    }
+
+    private void remove(String key) {
+        Entry old = memory.remove(key);
+        if (old != null) {
+            memoryChars -= old.value.length();
+        }
+    }
+
+    private static class Entry {
+        final String value;
+        final long expiresAt;
+
+        Entry(String value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
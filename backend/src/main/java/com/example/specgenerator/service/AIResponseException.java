@@ -0,0 +1,10 @@
+package com.example.specgenerator.service;
+
+/**
+ * Gemini answered, but not with usable content (no candidates, no parts, ...).
+ */
+public class AIResponseException extends RuntimeException {
+    public AIResponseException(String message) {
+        super(message);
+    }
+}
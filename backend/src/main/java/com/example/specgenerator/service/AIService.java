@@ -1,57 +1,358 @@
 package com.example.specgenerator.service;
 
+import com.example.specgenerator.model.SpecSection;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.pool.PoolStats;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.function.Consumer;
 
 @Service
 public class AIService {
 
+    // Values of the "operation" tag on the ai.gemini.* meters
+    private static final String GENERATE = "generate";
+    private static final String REFINE = "refine";
+
+    // Part of every response cache key; bump when prompt wording or request options change
+    static final String PROMPT_TEMPLATE_VERSION = "3";
+
     @Value("${gemini.api-key:}")
     private String geminiApiKey;
 
-    // Simple implementation for Gemini API
-    public String generateSpecContent(String prompt) {
-        return callGemini(prompt, true);
+    // Overridable so the client can be pointed at a local stub server
+    @Value("${gemini.base-url:https://generativelanguage.googleapis.com/v1beta}")
+    private String geminiBaseUrl;
+
+    @Value("${gemini.model:gemini-2.0-flash}")
+    private String geminiModel;
+
+    // Constrains whole-spec answers to a JSON schema; turn off for models without responseSchema
+    @Value("${gemini.structured-output:true}")
+    private boolean structuredOutput;
+
+    @Autowired
+    @Qualifier("aiRestTemplate")
+    private RestTemplate restTemplate;
+
+    @Autowired
+    private PoolingHttpClientConnectionManager aiConnectionManager;
+
+    @Autowired
+    private AIResponseCache responseCache;
+
+    @Autowired
+    private AIGateway gateway;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final SingleFlight<String, String> inFlight = new SingleFlight<>();
+
+    /**
+     * Failures surface as exceptions rather than error strings, so they can never be mistaken
+     * for model output and saved.
+     */
+    public String generateContentOrThrow(String prompt, boolean bypassCache) {
+        return callGeminiOrThrow(prompt, GENERATE, bypassCache, false);
     }
 
-    public String refineContent(String section, String currentContent, String instruction) {
-        if (geminiApiKey == null || geminiApiKey.isEmpty()) {
-            return "Error: Gemini API Key not configured.";
-        }
+    /**
+     * A whole spec as one JSON object with a string member per section. Answers that do
+     * not hold every section are returned but not cached, so a retry reaches the model.
+     */
+    public String generateSpecJsonOrThrow(String prompt, boolean bypassCache) {
+        return callGeminiOrThrow(prompt, GENERATE, bypassCache, true);
+    }
+
+    public String refineContentOrThrow(String section, String currentContent, String instruction,
+            boolean bypassCache) {
+        return callGeminiOrThrow(buildRefinePrompt(section, currentContent, instruction), REFINE, bypassCache,
+                false);
+    }
+
+    /**
+     * Streams the model output for {@code prompt}, handing every text fragment to
+     * {@code onChunk} as soon as it arrives. Returns the concatenated text.
+     * A cache hit is delivered as a single fragment.
+     */
+    public String streamSpecContent(String prompt, boolean bypassCache, Consumer<String> onChunk) {
+        return streamGemini(prompt, GENERATE, bypassCache, true, onChunk);
+    }
+
+    public String streamRefineContent(String section, String currentContent, String instruction,
+            boolean bypassCache, Consumer<String> onChunk) {
+        return streamGemini(buildRefinePrompt(section, currentContent, instruction), REFINE, bypassCache, false,
+                onChunk);
+    }
+
+    public Map<String, Object> getGatewayStats() {
+        return gateway.getStats();
+    }
+
+    public int getConcurrencyLimit() {
+        return gateway.getLimit();
+    }
+
+    public boolean isAcceptingCalls() {
+        return gateway.isAcceptingCalls();
+    }
+
+    public Map<String, Object> getCacheStats() {
+        return responseCache.getStats();
+    }
+
+    public Map<String, Object> getSingleFlightStats() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("inFlight", inFlight.inFlight());
+        result.put("executions", inFlight.getExecutions());
+        result.put("coalesced", inFlight.getCoalesced());
+        return result;
+    }
+
+    // Snapshot of the shared Gemini connection pool; leased == max with pending > 0 means saturation.
+    public Map<String, Object> getPoolStats() {
+        PoolStats stats = aiConnectionManager.getTotalStats();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("leased", stats.getLeased());
+        result.put("pending", stats.getPending());
+        result.put("available", stats.getAvailable());
+        result.put("max", stats.getMax());
+        return result;
+    }
 
-        String fullPrompt = "You are a technical expert. Refine the following code based on the instruction. \n" +
+    private String buildRefinePrompt(String section, String currentContent, String instruction) {
+        return "You are a technical expert. Refine the following code based on the instruction. \n" +
                 "Section Type: " + section + "\n" +
                 "Instruction: " + instruction + "\n" +
                 "Current Content:\n" + currentContent + "\n\n" +
                 "Return ONLY the updated code without any markdown formatting (no ```).";
-
-        return callGemini(fullPrompt, false);
     }
 
-    private String callGemini(String prompt, boolean jsonMode) {
+    private String callGeminiOrThrow(String prompt, String operation, boolean bypassCache, boolean specJson) {
         if (geminiApiKey == null || geminiApiKey.isEmpty()) {
-            return "Error: Gemini API Key not configured.";
+            throw new AIResponseException("Gemini API Key not configured.");
         }
 
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "error";
+        try {
+            String cacheKey = cacheKey(prompt, operation, specJson);
+            if (!bypassCache) {
+                String cached = responseCache.get(cacheKey);
+                if (cached != null) {
+                    outcome = "cache_hit";
+                    return cached;
+                }
+            }
+
+            // Identical prompts already in flight (double clicks, client retries) share one upstream call
+            String result = inFlight.execute(cacheKey, () -> {
+                String text = gateway.execute(() -> requestGemini(prompt, operation, specJson));
+                // Only reached on success, so error strings are never cached
+                if (isCacheable(text, specJson)) {
+                    responseCache.put(cacheKey, geminiModel, text);
+                }
+                return text;
+            });
+            outcome = "success";
+            return result;
+        } catch (AIUnavailableException e) {
+            outcome = "rejected";
+            throw e;
+        } finally {
+            sample.stop(callTimer(operation, false, outcome));
+        }
+    }
+
+    private String requestGemini(String prompt, String operation, boolean specJson) {
         // Use the correct Gemini API endpoint from official documentation
         // https://generativelanguage.googleapis.com/v1beta/models/gemini-2.0-flash:generateContent
-        String url = "https://generativelanguage.googleapis.com/v1beta/models/gemini-2.0-flash:generateContent?key="
-                + geminiApiKey;
-        RestTemplate restTemplate = new RestTemplate();
+        String url = geminiUrl("generateContent");
 
         HttpHeaders headers = new HttpHeaders();
         headers.setContentType(MediaType.APPLICATION_JSON);
 
+        HttpEntity<Map<String, Object>> entity = new HttpEntity<>(buildRequestBody(prompt, specJson), headers);
+
+        ResponseEntity<Map> response = restTemplate.postForEntity(url, entity, Map.class);
+        Map<String, Object> responseBody = response.getBody();
+
+        // Parse Gemini response format
+        List<Map<String, Object>> candidates = (List<Map<String, Object>>) responseBody.get("candidates");
+        if (candidates == null || candidates.isEmpty()) {
+            throw new AIResponseException("No response from Gemini API");
+        }
+
+        Map<String, Object> candidate = candidates.get(0);
+        Map<String, Object> contentObj = (Map<String, Object>) candidate.get("content");
+        List<Map<String, Object>> responseParts = contentObj == null ? null
+                : (List<Map<String, Object>>) contentObj.get("parts");
+
+        if (responseParts == null || responseParts.isEmpty()) {
+            throw new AIResponseException("Invalid response format from Gemini API");
+        }
+
+        String text = (String) responseParts.get(0).get("text");
+        Map<String, Object> usage = (Map<String, Object>) responseBody.get("usageMetadata");
+        recordExchange(operation, prompt, text,
+                usage == null ? null : (Number) usage.get("promptTokenCount"),
+                usage == null ? null : (Number) usage.get("candidatesTokenCount"));
+        return text;
+    }
+
+    // streamGenerateContent with alt=sse answers with one "data: {GenerateContentResponse}"
+    // line per chunk; each chunk carries the next slice of candidate text.
+    private String streamGemini(String prompt, String operation, boolean bypassCache, boolean specJson,
+            Consumer<String> onChunk) {
+        if (geminiApiKey == null || geminiApiKey.isEmpty()) {
+            throw new IllegalStateException("Gemini API Key not configured.");
+        }
+
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "error";
+        try {
+            String cacheKey = cacheKey(prompt, operation, specJson);
+            if (!bypassCache) {
+                String cached = responseCache.get(cacheKey);
+                if (cached != null) {
+                    outcome = "cache_hit";
+                    onChunk.accept(cached);
+                    return cached;
+                }
+            }
+
+            String url = geminiUrl("streamGenerateContent") + "&alt=sse";
+            Map<String, Object> requestBody = buildRequestBody(prompt, specJson);
+
+            // Not retried: part of the output may already have been forwarded to the client
+            String result = gateway.execute(() -> restTemplate.execute(url, HttpMethod.POST,
+                    request -> {
+                        request.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+                        request.getHeaders().setAccept(Collections.singletonList(MediaType.TEXT_EVENT_STREAM));
+                        objectMapper.writeValue(request.getBody(), requestBody);
+                    },
+                    response -> {
+                        StringBuilder full = new StringBuilder();
+                        JsonNode usage = null;
+                        BufferedReader reader = new BufferedReader(
+                                new InputStreamReader(response.getBody(), StandardCharsets.UTF_8));
+                        String line;
+                        while ((line = reader.readLine()) != null) {
+                            if (!line.startsWith("data:")) {
+                                continue;
+                            }
+                            JsonNode chunk = objectMapper.readTree(line.substring(5).trim());
+                            // Running totals; the last chunk has the final counts
+                            if (chunk.has("usageMetadata")) {
+                                usage = chunk.get("usageMetadata");
+                            }
+                            String text = extractText(chunk);
+                            if (text != null && !text.isEmpty()) {
+                                full.append(text);
+                                onChunk.accept(text);
+                            }
+                        }
+                        if (full.length() == 0) {
+                            throw new AIResponseException("No response from Gemini API");
+                        }
+                        recordExchange(operation, prompt, full,
+                                usage == null ? null : usage.path("promptTokenCount").numberValue(),
+                                usage == null ? null : usage.path("candidatesTokenCount").numberValue());
+                        if (isCacheable(full.toString(), specJson)) {
+                            responseCache.put(cacheKey, geminiModel, full.toString());
+                        }
+                        return full.toString();
+                    }), false);
+            outcome = "success";
+            return result;
+        } catch (AIUnavailableException e) {
+            outcome = "rejected";
+            throw e;
+        } finally {
+            sample.stop(callTimer(operation, true, outcome));
+        }
+    }
+
+    // Whole call as seen by the caller: cache lookup, queueing at the gateway and retries included
+    private Timer callTimer(String operation, boolean stream, String outcome) {
+        return Timer.builder("ai.gemini.calls")
+                .description("Gemini calls by operation and outcome")
+                .tag("operation", operation)
+                .tag("stream", String.valueOf(stream))
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    // One answered upstream request; token counts are missing when Gemini sends no usageMetadata
+    private void recordExchange(String operation, String prompt, CharSequence response, Number promptTokens,
+            Number responseTokens) {
+        size("ai.gemini.prompt.size", operation).record(prompt.length());
+        size("ai.gemini.response.size", operation).record(response == null ? 0 : response.length());
+        if (promptTokens != null) {
+            tokens(operation, "prompt").record(promptTokens.doubleValue());
+        }
+        if (responseTokens != null) {
+            tokens(operation, "response").record(responseTokens.doubleValue());
+        }
+    }
+
+    private DistributionSummary size(String name, String operation) {
+        return DistributionSummary.builder(name)
+                .baseUnit("chars")
+                .tag("operation", operation)
+                .register(meterRegistry);
+    }
+
+    private DistributionSummary tokens(String operation, String type) {
+        return DistributionSummary.builder("ai.gemini.tokens")
+                .description("Tokens per Gemini request, from usageMetadata")
+                .baseUnit("tokens")
+                .tag("operation", operation)
+                .tag("type", type)
+                .register(meterRegistry);
+    }
+
+    private String geminiUrl(String method) {
+        return geminiBaseUrl + "/models/" + geminiModel + ":" + method + "?key=" + geminiApiKey;
+    }
+
+    // Structured answers differ from free-form ones for the same prompt, so they are keyed apart
+    private String cacheKey(String prompt, String operation, boolean specJson) {
+        String templateVersion = specJson && structuredOutput ? PROMPT_TEMPLATE_VERSION + "+schema" : PROMPT_TEMPLATE_VERSION;
+        return AIResponseCache.keyFor(geminiModel, templateVersion, prompt, GENERATE.equals(operation));
+    }
+
+    private boolean isCacheable(String text, boolean specJson) {
+        return !specJson || SpecJsonExtractor.extract(text, SpecSection.NAMES).size() == SpecSection.NAMES.size();
+    }
+
+    private Map<String, Object> buildRequestBody(String prompt, boolean specJson) {
         Map<String, Object> requestBody = new HashMap<>();
 
         // Build contents array
@@ -68,33 +369,38 @@ public class AIService {
 
         requestBody.put("contents", contents);
 
-        // Note: Gemini Pro v1 doesn't support response_mime_type
-        // We rely on the prompt to request JSON format output
-
-        HttpEntity<Map<String, Object>> entity = new HttpEntity<>(requestBody, headers);
-
-        try {
-            ResponseEntity<Map> response = restTemplate.postForEntity(url, entity, Map.class);
-            Map<String, Object> responseBody = response.getBody();
-
-            // Parse Gemini response format
-            List<Map<String, Object>> candidates = (List<Map<String, Object>>) responseBody.get("candidates");
-            if (candidates == null || candidates.isEmpty()) {
-                return "Error: No response from Gemini API";
-            }
-
-            Map<String, Object> candidate = candidates.get(0);
-            Map<String, Object> contentObj = (Map<String, Object>) candidate.get("content");
-            List<Map<String, Object>> responseParts = (List<Map<String, Object>>) contentObj.get("parts");
+        if (specJson && structuredOutput) {
+            Map<String, Object> generationConfig = new HashMap<>();
+            generationConfig.put("responseMimeType", "application/json");
+            generationConfig.put("responseSchema", specSchema());
+            requestBody.put("generationConfig", generationConfig);
+        }
+        return requestBody;
+    }
 
-            if (responseParts == null || responseParts.isEmpty()) {
-                return "Error: Invalid response format from Gemini API";
-            }
+    // Every section as a required string member, in display order
+    private Map<String, Object> specSchema() {
+        Map<String, Object> properties = new LinkedHashMap<>();
+        for (String name : SpecSection.NAMES) {
+            properties.put(name, Collections.singletonMap("type", "STRING"));
+        }
+        Map<String, Object> schema = new LinkedHashMap<>();
+        schema.put("type", "OBJECT");
+        schema.put("properties", properties);
+        schema.put("required", SpecSection.NAMES);
+        schema.put("propertyOrdering", SpecSection.NAMES);
+        return schema;
+    }
 
-            return (String) responseParts.get(0).get("text");
-        } catch (Exception e) {
-            e.printStackTrace();
-            return "Error calling Gemini API: " + e.getMessage();
+    private String extractText(JsonNode chunk) {
+        JsonNode parts = chunk.path("candidates").path(0).path("content").path("parts");
+        if (!parts.isArray()) {
+            return null;
+        }
+        StringBuilder text = new StringBuilder();
+        for (JsonNode part : parts) {
+            text.append(part.path("text").asText(""));
         }
+        return text.toString();
     }
 }
@@ -0,0 +1,30 @@
+package com.example.specgenerator.service;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * The AI gateway refused a call without contacting Gemini (concurrency limit reached or
+ * circuit open). Rendered as 503 with a Retry-After header.
+ */
+public class AIUnavailableException extends ResponseStatusException {
+
+    private final long retryAfterSeconds;
+
+    public AIUnavailableException(String reason, long retryAfterSeconds) {
+        super(HttpStatus.SERVICE_UNAVAILABLE, reason);
+        this.retryAfterSeconds = Math.max(1, retryAfterSeconds);
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+
+    @Override
+    public HttpHeaders getResponseHeaders() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        return headers;
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.specgenerator.service;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * AIMD concurrency limit. The limit grows by one for every successful call made while
+ * the limit is actually being used, and is multiplied by {@code backoffRatio} whenever a
+ * call is dropped (429/5xx/IO error) or takes longer than {@code latencyThresholdMs}.
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double backoffRatio;
+    private final long latencyThresholdMs;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicLong rejected = new AtomicLong();
+
+    private volatile double limit;
+
+    public AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, double backoffRatio,
+            long latencyThresholdMs) {
+        this.limit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.backoffRatio = backoffRatio;
+        this.latencyThresholdMs = latencyThresholdMs;
+    }
+
+    public boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= (int) limit) {
+                rejected.incrementAndGet();
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    public void onSuccess(long latencyMs) {
+        int current = inFlight.getAndDecrement();
+        if (latencyMs > latencyThresholdMs) {
+            decrease();
+        } else if (current * 2 >= limit) {
+            // Only grow while the limit is the constraint; an idle service learns nothing
+            synchronized (this) {
+                limit = Math.min(maxLimit, limit + 1);
+            }
+        }
+    }
+
+    public void onDropped() {
+        inFlight.decrementAndGet();
+        decrease();
+    }
+
+    // Permit returned without telling us anything about upstream health
+    public void onIgnored() {
+        inFlight.decrementAndGet();
+    }
+
+    public int getLimit() {
+        return (int) limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public long getRejected() {
+        return rejected.get();
+    }
+
+    private synchronized void decrease() {
+        limit = Math.max(minLimit, limit * backoffRatio);
+    }
+}
@@ -0,0 +1,143 @@
+package com.example.specgenerator.service;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Failure-rate circuit breaker over a sliding window of the last {@code windowSize} calls.
+ * <p>
+ * CLOSED: calls pass; once at least {@code minimumCalls} are recorded and the failure
+ * rate reaches {@code failureRateThreshold} the breaker opens. OPEN: calls are rejected
+ * for {@code openMs}. HALF_OPEN: up to {@code halfOpenProbes} calls are let through;
+ * a successful probe closes the breaker, a failed one opens it again.
+ */
+public class CircuitBreaker {
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final int windowSize;
+    private final int minimumCalls;
+    private final double failureRateThreshold;
+    private final long openMs;
+    private final int halfOpenProbes;
+
+    private final boolean[] window;
+    private int windowIndex;
+    private int recorded;
+    private int failures;
+
+    private State state = State.CLOSED;
+    private long openedAt;
+    private int probesInFlight;
+
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong opened = new AtomicLong();
+
+    public CircuitBreaker(int windowSize, int minimumCalls, double failureRateThreshold, long openMs,
+            int halfOpenProbes) {
+        this.windowSize = windowSize;
+        this.minimumCalls = minimumCalls;
+        this.failureRateThreshold = failureRateThreshold;
+        this.openMs = openMs;
+        this.halfOpenProbes = halfOpenProbes;
+        this.window = new boolean[windowSize];
+    }
+
+    public synchronized boolean tryAcquire() {
+        if (state == State.OPEN) {
+            if (System.currentTimeMillis() - openedAt < openMs) {
+                rejected.incrementAndGet();
+                return false;
+            }
+            state = State.HALF_OPEN;
+            probesInFlight = 0;
+        }
+        if (state == State.HALF_OPEN) {
+            if (probesInFlight >= halfOpenProbes) {
+                rejected.incrementAndGet();
+                return false;
+            }
+            probesInFlight++;
+        }
+        return true;
+    }
+
+    public synchronized void onSuccess() {
+        if (state == State.HALF_OPEN) {
+            reset();
+            return;
+        }
+        record(false);
+    }
+
+    public synchronized void onFailure() {
+        if (state == State.HALF_OPEN) {
+            open();
+            return;
+        }
+        record(true);
+        if (recorded >= minimumCalls && (double) failures / recorded >= failureRateThreshold) {
+            open();
+        }
+    }
+
+    // Permit returned without an outcome (e.g. a 400 caused by our own request)
+    public synchronized void onIgnored() {
+        if (state == State.HALF_OPEN && probesInFlight > 0) {
+            probesInFlight--;
+        }
+    }
+
+    public synchronized State getState() {
+        if (state == State.OPEN && System.currentTimeMillis() - openedAt >= openMs) {
+            return State.HALF_OPEN;
+        }
+        return state;
+    }
+
+    public synchronized long getRetryAfterMs() {
+        return state == State.OPEN ? Math.max(0, openMs - (System.currentTimeMillis() - openedAt)) : 0;
+    }
+
+    public synchronized double getFailureRate() {
+        return recorded == 0 ? 0 : (double) failures / recorded;
+    }
+
+    public long getRejected() {
+        return rejected.get();
+    }
+
+    public long getOpened() {
+        return opened.get();
+    }
+
+    private void record(boolean failure) {
+        if (recorded == windowSize) {
+            if (window[windowIndex]) {
+                failures--;
+            }
+        } else {
+            recorded++;
+        }
+        window[windowIndex] = failure;
+        if (failure) {
+            failures++;
+        }
+        windowIndex = (windowIndex + 1) % windowSize;
+    }
+
+    private void open() {
+        state = State.OPEN;
+        openedAt = System.currentTimeMillis();
+        opened.incrementAndGet();
+    }
+
+    private void reset() {
+        state = State.CLOSED;
+        probesInFlight = 0;
+        recorded = 0;
+        failures = 0;
+        windowIndex = 0;
+    }
+}
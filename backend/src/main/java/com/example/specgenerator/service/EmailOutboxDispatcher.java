@@ -0,0 +1,177 @@
+package com.example.specgenerator.service;
+
+import com.example.specgenerator.model.EmailOutboxMessage;
+import com.example.specgenerator.repository.EmailOutboxRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Sends the email outbox in the background.
+ * <p>
+ * Due messages are claimed in batches and each batch goes out over one SMTP connection.
+ * A failed message is retried with exponential backoff and, after the last attempt, left
+ * as DEAD with its error for someone to look at. Claims are leases, so several instances
+ * can run this side by side and a batch lost with a crashed instance is sent again later.
+ */
+@Component
+public class EmailOutboxDispatcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(EmailOutboxDispatcher.class);
+
+    @Autowired
+    EmailOutboxRepository outboxRepository;
+
+    @Autowired
+    JavaMailSender mailSender;
+
+    @Value("${app.email-outbox.from:noreply@specgenerator.com}")
+    private String from;
+
+    @Value("${app.email-outbox.batch-size:50}")
+    private int batchSize;
+
+    @Value("${app.email-outbox.max-attempts:6}")
+    private int maxAttempts;
+
+    @Value("${app.email-outbox.backoff-base-ms:30000}")
+    private long backoffBaseMs;
+
+    @Value("${app.email-outbox.backoff-max-ms:3600000}")
+    private long backoffMaxMs;
+
+    @Value("${app.email-outbox.lease-ms:300000}")
+    private long leaseMs;
+
+    @Value("${app.email-outbox.retention-ms:604800000}")
+    private long retentionMs;
+
+    private final String dispatcherId = "mailer-" + UUID.randomUUID().toString().substring(0, 8);
+
+    @Scheduled(fixedDelayString = "${app.email-outbox.poll-interval-ms:1000}")
+    public void dispatch() {
+        // Full batches mean more is waiting; drain a burst without sleeping between batches
+        int seen;
+        do {
+            seen = dispatchBatch();
+        } while (seen == batchSize);
+    }
+
+    // Returns the number of due messages seen
+    int dispatchBatch() {
+        LocalDateTime now = LocalDateTime.now();
+        List<Long> due = outboxRepository.findDueIds(now, PageRequest.of(0, batchSize));
+        if (due.isEmpty()) {
+            return 0;
+        }
+        outboxRepository.claim(due, dispatcherId, now, now.plus(leaseMs, ChronoUnit.MILLIS));
+        List<EmailOutboxMessage> claimed = outboxRepository.findByLockedByAndStatusAndIdIn(dispatcherId,
+                EmailOutboxMessage.Status.PENDING, due);
+        if (claimed.isEmpty()) {
+            return due.size();
+        }
+
+        SimpleMailMessage[] mails = new SimpleMailMessage[claimed.size()];
+        for (int i = 0; i < mails.length; i++) {
+            mails[i] = toMail(claimed.get(i));
+        }
+        Map<Object, Exception> failures = send(mails);
+
+        List<Long> sent = new ArrayList<>();
+        LocalDateTime finished = LocalDateTime.now();
+        for (int i = 0; i < mails.length; i++) {
+            Exception failure = failures.get(mails[i]);
+            if (failure == null) {
+                sent.add(claimed.get(i).getId());
+            } else {
+                fail(claimed.get(i), failure, finished);
+            }
+        }
+        if (!sent.isEmpty()) {
+            outboxRepository.markSent(sent, dispatcherId, finished);
+        }
+        logger.info("Email outbox: sent {}, failed {}", sent.size(), mails.length - sent.size());
+        return due.size();
+    }
+
+    @Scheduled(fixedDelay = 3600000, initialDelay = 60000)
+    public void purgeSent() {
+        int purged = outboxRepository.deleteSentBefore(LocalDateTime.now().minus(retentionMs, ChronoUnit.MILLIS));
+        if (purged > 0) {
+            logger.info("Purged {} sent emails from the outbox", purged);
+        }
+    }
+
+    // Failed messages keyed by the SimpleMailMessage they came from; empty when all went out
+    private Map<Object, Exception> send(SimpleMailMessage[] mails) {
+        try {
+            // One connection for the whole batch
+            mailSender.send(mails);
+            return Collections.emptyMap();
+        } catch (MailSendException e) {
+            if (!e.getFailedMessages().isEmpty()) {
+                return e.getFailedMessages();
+            }
+            return allFailed(mails, e);
+        } catch (MailException e) {
+            return allFailed(mails, e);
+        }
+    }
+
+    private Map<Object, Exception> allFailed(SimpleMailMessage[] mails, Exception e) {
+        Map<Object, Exception> failures = new LinkedHashMap<>();
+        for (SimpleMailMessage mail : mails) {
+            failures.put(mail, e);
+        }
+        return failures;
+    }
+
+    private void fail(EmailOutboxMessage message, Exception error, LocalDateTime now) {
+        int attempts = message.getAttempts() + 1;
+        boolean dead = attempts >= maxAttempts;
+        EmailOutboxMessage.Status status = dead ? EmailOutboxMessage.Status.DEAD : EmailOutboxMessage.Status.PENDING;
+        LocalDateTime next = dead ? now : now.plus(backoffMs(attempts), ChronoUnit.MILLIS);
+        outboxRepository.markFailed(message.getId(), dispatcherId, status, String.valueOf(error.getMessage()), next);
+        if (dead) {
+            logger.warn("Giving up on email {} to {} after {} attempts: {}", message.getId(),
+                    message.getRecipient(), attempts, error.getMessage());
+        } else {
+            logger.info("Email {} failed (attempt {}), retrying at {}: {}", message.getId(), attempts, next,
+                    error.getMessage());
+        }
+    }
+
+    // base * 2^(attempts-1), capped, with up to 20% jitter so a failed burst does not retry in lockstep
+    private long backoffMs(int attempts) {
+        long delay = backoffBaseMs << Math.min(attempts - 1, 20);
+        delay = Math.min(backoffMaxMs, delay);
+        return delay + ThreadLocalRandom.current().nextLong(delay / 5 + 1);
+    }
+
+    private SimpleMailMessage toMail(EmailOutboxMessage message) {
+        SimpleMailMessage mail = new SimpleMailMessage();
+        mail.setFrom(from);
+        mail.setTo(message.getRecipient());
+        mail.setSubject(message.getSubject());
+        mail.setText(message.getBody());
+        return mail;
+    }
+}
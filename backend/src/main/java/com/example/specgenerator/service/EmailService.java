@@ -1,28 +1,25 @@
 package com.example.specgenerator.service;
 
+import com.example.specgenerator.model.EmailOutboxMessage;
+import com.example.specgenerator.repository.EmailOutboxRepository;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.mail.SimpleMailMessage;
-import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+// Mail goes through the email_outbox table; EmailOutboxDispatcher does the SMTP part
 @Service
 public class EmailService {
 
     @Autowired
-    private JavaMailSender emailSender;
+    private EmailOutboxRepository outboxRepository;
 
-    public void sendSimpleMessage(String to, String subject, String text) {
-        try {
-            SimpleMailMessage message = new SimpleMailMessage();
-            message.setFrom("noreply@specgenerator.com");
-            message.setTo(to);
-            message.setSubject(subject);
-            message.setText(text);
-            emailSender.send(message);
-        } catch (Exception e) {
-            // Log error but don't block if email fails in developement without SMTP
-            System.err.println("Failed to send email to " + to + ": " + e.getMessage());
-            // In production, you might want to throw or handle this differently
-        }
+    // Joins the caller's transaction, so the mail exists exactly when the caller's changes commit
+    @Transactional
+    public void enqueue(String to, String subject, String text) {
+        EmailOutboxMessage message = new EmailOutboxMessage();
+        message.setRecipient(to);
+        message.setSubject(subject);
+        message.setBody(text);
+        outboxRepository.save(message);
     }
 }
@@ -0,0 +1,135 @@
+package com.example.specgenerator.service;
+
+import com.example.specgenerator.model.Member;
+import com.example.specgenerator.model.PasswordResetToken;
+import com.example.specgenerator.repository.MemberRepository;
+import com.example.specgenerator.repository.PasswordResetTokenRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Issues and redeems password reset tokens, kept in password_reset_tokens rather than on
+ * the member row.
+ * <p>
+ * A token is 256 random bits and only its SHA-256 is stored; it is looked up by that hash
+ * through a unique index, so timing reveals nothing about the token itself. A member has at
+ * most one live token, redeeming one removes them all, and expired rows are swept in chunks
+ * in the background.
+ */
+@Service
+public class PasswordResetService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PasswordResetService.class);
+
+    private static final int TOKEN_BYTES = 32;
+
+    private final SecureRandom random = new SecureRandom();
+
+    @Autowired
+    PasswordResetTokenRepository tokenRepository;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    EmailService emailService;
+
+    @Value("${app.password-reset.token-ttl-ms:86400000}")
+    private long tokenTtlMs;
+
+    @Value("${app.password-reset.sweep-chunk-size:1000}")
+    private int sweepChunkSize;
+
+    // Replaces any earlier token of the member and returns the new one, which is never stored
+    @Transactional
+    public String issue(Long memberId) {
+        byte[] raw = new byte[TOKEN_BYTES];
+        random.nextBytes(raw);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(raw);
+
+        tokenRepository.deleteByMemberId(memberId);
+        PasswordResetToken resetToken = new PasswordResetToken();
+        resetToken.setTokenHash(hash(token));
+        resetToken.setMemberId(memberId);
+        resetToken.setExpiresAt(LocalDateTime.now().plus(tokenTtlMs, ChronoUnit.MILLIS));
+        tokenRepository.save(resetToken);
+        return token;
+    }
+
+    // The token and its email commit together; the email is sent by EmailOutboxDispatcher
+    @Transactional
+    public void issueAndSend(Long memberId, String email) {
+        String token = issue(memberId);
+        emailService.enqueue(
+                email,
+                "密碼重置請求",
+                "若要重置您的密碼，請使用以下 Token: " + token);
+    }
+
+    public Optional<PasswordResetToken> find(String token) {
+        if (token == null || token.isEmpty()) {
+            return Optional.empty();
+        }
+        return tokenRepository.findByTokenHash(hash(token));
+    }
+
+    /**
+     * Sets the new password hash and removes the member's tokens. Returns the member's email,
+     * or empty if the token was redeemed concurrently.
+     */
+    @Transactional
+    public Optional<String> redeem(PasswordResetToken resetToken, String passwordHash) {
+        if (tokenRepository.deleteByIdIn(Collections.singletonList(resetToken.getId())) == 0) {
+            return Optional.empty();
+        }
+        Optional<Member> member = memberRepository.findById(resetToken.getMemberId());
+        member.ifPresent(m -> m.setPassword(passwordHash));
+        tokenRepository.deleteByMemberId(resetToken.getMemberId());
+        return member.map(Member::getEmail);
+    }
+
+    @Scheduled(fixedDelayString = "${app.password-reset.sweep-interval-ms:600000}", initialDelay = 60000)
+    public void sweepExpired() {
+        long started = System.currentTimeMillis();
+        PageRequest chunk = PageRequest.of(0, sweepChunkSize);
+        LocalDateTime now = LocalDateTime.now();
+        int swept = 0;
+        List<Long> ids;
+        while (!(ids = tokenRepository.findExpiredIds(now, chunk)).isEmpty()) {
+            swept += tokenRepository.deleteByIdIn(ids);
+        }
+        if (swept > 0) {
+            logger.info("Swept {} expired password reset tokens in {} ms", swept, System.currentTimeMillis() - started);
+        }
+    }
+
+    private static String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
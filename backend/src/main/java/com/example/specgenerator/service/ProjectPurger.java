@@ -0,0 +1,105 @@
+package com.example.specgenerator.service;
+
+import com.example.specgenerator.repository.GeneratedSpecRepository;
+import com.example.specgenerator.repository.ProjectRepository;
+import com.example.specgenerator.repository.SpecGenerationBatchRepository;
+import com.example.specgenerator.repository.SpecGenerationJobRepository;
+import com.example.specgenerator.repository.SpecSectionRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import java.util.List;
+
+/**
+ * Removes projects that were marked deleted, together with everything under them.
+ * <p>
+ * Jobs, and then specs with their sections, are deleted by id in chunks, each chunk in a
+ * short transaction of its own, so a project with many specs never holds locks on
+ * generated_specs for long and no spec entity is loaded just to be removed. The project
+ * row goes last. A purge that is interrupted (or loses a race with a job that was still
+ * running) simply continues on the next run.
+ */
+@Component
+public class ProjectPurger {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProjectPurger.class);
+
+    @Autowired
+    ProjectRepository projectRepository;
+
+    @Autowired
+    GeneratedSpecRepository specRepository;
+
+    @Autowired
+    SpecSectionRepository sectionRepository;
+
+    @Autowired
+    SpecGenerationJobRepository jobRepository;
+
+    @Autowired
+    SpecGenerationBatchRepository batchRepository;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    ApplicationEventPublisher eventPublisher;
+
+    @Value("${app.project-purge.chunk-size:500}")
+    private int chunkSize;
+
+    private TransactionTemplate transactionTemplate;
+
+    @PostConstruct
+    public void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Scheduled(fixedDelayString = "${app.project-purge.interval-ms:2000}", initialDelay = 5000)
+    public void purgeDeleted() {
+        for (Long projectId : projectRepository.findDeletedIds()) {
+            try {
+                purge(projectId);
+            } catch (RuntimeException e) {
+                logger.warn("Purge of deleted project {} stopped, retrying on the next run", projectId, e);
+            }
+        }
+    }
+
+    public void purge(Long projectId) {
+        long started = System.currentTimeMillis();
+        PageRequest chunk = PageRequest.of(0, chunkSize);
+
+        List<Long> ids;
+        while (!(ids = jobRepository.findIdsByProjectId(projectId, chunk)).isEmpty()) {
+            jobRepository.deleteByIdIn(ids);
+        }
+
+        int specs = 0;
+        while (!(ids = specRepository.findIdsByProjectId(projectId, chunk)).isEmpty()) {
+            List<Long> specIds = ids;
+            transactionTemplate.executeWithoutResult(status -> {
+                sectionRepository.deleteBySpecIdIn(specIds);
+                specRepository.deleteByIdIn(specIds);
+                specIds.forEach(id -> eventPublisher.publishEvent(new SpecChangedEvent(id)));
+            });
+            specs += specIds.size();
+        }
+
+        transactionTemplate.executeWithoutResult(status -> {
+            batchRepository.deleteByProjectId(projectId);
+            projectRepository.deleteMarkedById(projectId);
+        });
+        logger.info("Purged deleted project {} with {} specs in {} ms", projectId, specs,
+                System.currentTimeMillis() - started);
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.specgenerator.service;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Collapses concurrent calls for the same key into one execution.
+ * <p>
+ * The first caller for a key runs the supplier; callers arriving while it is still
+ * running wait for and share its result (or exception). The key is removed as soon
+ * as the call finishes, so nothing is retained per key afterwards and the next call
+ * starts fresh.
+ */
+public class SingleFlight<K, V> {
+
+    private final ConcurrentHashMap<K, CompletableFuture<V>> calls = new ConcurrentHashMap<>();
+
+    private final AtomicLong executions = new AtomicLong();
+
+    private final AtomicLong coalesced = new AtomicLong();
+
+    public V execute(K key, Supplier<V> supplier) {
+        CompletableFuture<V> created = new CompletableFuture<>();
+        CompletableFuture<V> existing = calls.putIfAbsent(key, created);
+        if (existing != null) {
+            coalesced.incrementAndGet();
+            return await(existing);
+        }
+
+        executions.incrementAndGet();
+        try {
+            V value = supplier.get();
+            created.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            created.completeExceptionally(e);
+            throw e;
+        } finally {
+            calls.remove(key, created);
+        }
+    }
+
+    public int inFlight() {
+        return calls.size();
+    }
+
+    public long getExecutions() {
+        return executions.get();
+    }
+
+    public long getCoalesced() {
+        return coalesced.get();
+    }
+
+    private V await(CompletableFuture<V> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw e;
+        }
+    }
+}
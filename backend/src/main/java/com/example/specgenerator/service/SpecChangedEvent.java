@@ -0,0 +1,18 @@
+package com.example.specgenerator.service;
+
+/**
+ * Published when a spec is created, its content changes or it is deleted. Listeners
+ * re-read the spec themselves, so the event only names it.
+ */
+public class SpecChangedEvent {
+
+    private final Long specId;
+
+    public SpecChangedEvent(Long specId) {
+        this.specId = specId;
+    }
+
+    public Long getSpecId() {
+        return specId;
+    }
+}
@@ -0,0 +1,240 @@
+package com.example.specgenerator.service;
+
+import com.example.specgenerator.model.CompressionDictionary;
+import com.example.specgenerator.model.SpecSection;
+import com.example.specgenerator.repository.CompressionDictionaryRepository;
+import com.example.specgenerator.repository.SpecSectionRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Compression of spec section text with a shared preset dictionary.
+ * <p>
+ * OpenAPI documents, DDL and mock JSON repeat the same keywords and boilerplate in
+ * every spec, which a single document is too short to learn from. A deflate preset
+ * dictionary built from lines that recur across stored sections lets even small
+ * sections reference that boilerplate. Encoded values are
+ * {@code [format 0x01][dictionary id, 4 bytes][raw deflate]}; id 0 means no dictionary.
+ * Dictionaries are persisted and immutable, so retraining never strands old values.
+ */
+@Component
+public class SpecContentCodec {
+
+    private static final Logger logger = LoggerFactory.getLogger(SpecContentCodec.class);
+
+    private static final byte FORMAT_DEFLATE = 0x01;
+
+    private static final int HEADER_SIZE = 5;
+
+    // Deflate can only reach back 32 KiB, so a larger dictionary is wasted
+    private static final int MAX_DICTIONARY_SIZE = 32 * 1024;
+
+    // Used before any specs exist, and as the low-priority tail of trained dictionaries
+    private static final String SEED = String.join("\n",
+            "openapi: 3.0.0", "info:", "  title: ", "  version: 1.0.0", "paths:", "    get:", "    post:",
+            "    put:", "    delete:", "      summary: ", "      parameters:", "        - name: id",
+            "          in: path", "          required: true", "      requestBody:", "        content:",
+            "          application/json:", "            schema:", "              $ref: '#/components/schemas/",
+            "      responses:", "        '200':", "          description: ", "components:", "  schemas:",
+            "      type: object", "      properties:", "          type: string", "          type: integer",
+            "          format: int64", "          format: date-time",
+            "CREATE TABLE ", "  id BIGSERIAL PRIMARY KEY,", " VARCHAR(255) NOT NULL,", " TIMESTAMP DEFAULT CURRENT_TIMESTAMP",
+            " REFERENCES ", " ON DELETE CASCADE", "FOREIGN KEY ", "CREATE INDEX ", ");",
+            "sequenceDiagram", "    participant ", "    actor User", "->>", "-->>", "    Note right of ",
+            "    alt ", "    else ", "    end", "{\"id\": ", "\"name\": \"", "\"email\": \"", "\"createdAt\": \"",
+            "\"status\": \"", "true", "false", "null");
+
+    @Autowired
+    CompressionDictionaryRepository dictionaryRepository;
+
+    @Autowired
+    SpecSectionRepository sectionRepository;
+
+    @Value("${app.spec-storage.compression.enabled:false}")
+    private boolean enabled;
+
+    @Value("${app.spec-storage.compression.level:6}")
+    private int level;
+
+    @Value("${app.spec-storage.compression.dictionary-samples:500}")
+    private int dictionarySamples;
+
+    @Value("${app.spec-storage.compression.retrain-on-startup:false}")
+    private boolean retrainOnStartup;
+
+    private final Map<Integer, byte[]> dictionaries = new ConcurrentHashMap<>();
+
+    private volatile int currentDictionaryId;
+
+    // Whether new section content is written compressed; both formats are always readable
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadDictionary() {
+        if (!enabled) {
+            return;
+        }
+        CompressionDictionary latest = dictionaryRepository.findFirstByOrderByIdDesc().orElse(null);
+        if (latest == null || retrainOnStartup) {
+            latest = train();
+        }
+        dictionaries.put(latest.getId(), latest.getData());
+        currentDictionaryId = latest.getId();
+        logger.info("Spec compression using dictionary {} ({} bytes, {} samples)", latest.getId(),
+                latest.getData().length, latest.getSampleCount());
+    }
+
+    public CompressionDictionary train() {
+        List<String> samples = new ArrayList<>();
+        PageRequest page = PageRequest.of(0, dictionarySamples, Sort.by(Sort.Direction.DESC, "id"));
+        for (SpecSection section : sectionRepository.findAll(page)) {
+            if (section.getContent() != null) {
+                samples.add(section.getContent());
+            }
+        }
+
+        CompressionDictionary dictionary = new CompressionDictionary();
+        dictionary.setData(buildDictionary(samples));
+        dictionary.setSampleCount(samples.size());
+        return dictionaryRepository.save(dictionary);
+    }
+
+    public byte[] encode(String text) {
+        int dictionaryId = currentDictionaryId;
+        byte[] input = text.getBytes(StandardCharsets.UTF_8);
+
+        Deflater deflater = new Deflater(level, true);
+        try {
+            if (dictionaryId != 0) {
+                deflater.setDictionary(dictionary(dictionaryId));
+            }
+            deflater.setInput(input);
+            deflater.finish();
+
+            ByteArrayOutputStream out = new ByteArrayOutputStream(HEADER_SIZE + input.length / 3 + 64);
+            out.write(FORMAT_DEFLATE);
+            out.write(ByteBuffer.allocate(4).putInt(dictionaryId).array(), 0, 4);
+            byte[] buffer = new byte[8192];
+            while (!deflater.finished()) {
+                int n = deflater.deflate(buffer);
+                out.write(buffer, 0, n);
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    public String decode(byte[] data) {
+        if (data.length < HEADER_SIZE || data[0] != FORMAT_DEFLATE) {
+            throw new IllegalStateException("Unknown spec content format");
+        }
+        int dictionaryId = ByteBuffer.wrap(data, 1, 4).getInt();
+
+        Inflater inflater = new Inflater(true);
+        try {
+            if (dictionaryId != 0) {
+                inflater.setDictionary(dictionary(dictionaryId));
+            }
+            inflater.setInput(data, HEADER_SIZE, data.length - HEADER_SIZE);
+
+            ByteArrayOutputStream out = new ByteArrayOutputStream(data.length * 4);
+            byte[] buffer = new byte[8192];
+            boolean padded = false;
+            while (!inflater.finished()) {
+                int n = inflater.inflate(buffer);
+                if (n == 0 && inflater.needsInput() && !padded) {
+                    // Raw inflate may need one byte past the end to finish (e.g. the empty string)
+                    inflater.setInput(new byte[1]);
+                    padded = true;
+                    continue;
+                }
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new IllegalStateException("Truncated spec content");
+                }
+                out.write(buffer, 0, n);
+            }
+            return new String(out.toByteArray(), StandardCharsets.UTF_8);
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Corrupt spec content", e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private byte[] dictionary(int id) {
+        return dictionaries.computeIfAbsent(id, key -> dictionaryRepository.findById(key)
+                .map(CompressionDictionary::getData)
+                .orElseThrow(() -> new IllegalStateException("Missing compression dictionary " + key)));
+    }
+
+    /**
+     * Picks lines that occur in at least two samples, weighted by how many samples
+     * contain them and how long they are. Deflate finds matches near the end of the
+     * dictionary most cheaply, so the best lines go last and the seed goes first.
+     */
+    static byte[] buildDictionary(List<String> samples) {
+        Map<String, Integer> documentFrequency = new HashMap<>();
+        for (String sample : samples) {
+            Set<String> seen = new HashSet<>();
+            for (String line : sample.split("\n")) {
+                if (line.trim().length() >= 4 && seen.add(line)) {
+                    documentFrequency.merge(line, 1, Integer::sum);
+                }
+            }
+        }
+
+        List<Map.Entry<String, Integer>> candidates = new ArrayList<>();
+        for (Map.Entry<String, Integer> entry : documentFrequency.entrySet()) {
+            if (entry.getValue() >= 2) {
+                candidates.add(entry);
+            }
+        }
+        candidates.sort(Comparator.comparingLong(
+                (Map.Entry<String, Integer> e) -> (long) e.getValue() * e.getKey().length()).reversed());
+
+        List<byte[]> chosen = new ArrayList<>();
+        int size = 0;
+        for (Map.Entry<String, Integer> candidate : candidates) {
+            byte[] line = (candidate.getKey() + "\n").getBytes(StandardCharsets.UTF_8);
+            if (size + line.length > MAX_DICTIONARY_SIZE) {
+                continue;
+            }
+            chosen.add(line);
+            size += line.length;
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream(MAX_DICTIONARY_SIZE);
+        byte[] seed = (SEED + "\n").getBytes(StandardCharsets.UTF_8);
+        int seedRoom = Math.min(seed.length, MAX_DICTIONARY_SIZE - size);
+        out.write(seed, seed.length - seedRoom, seedRoom);
+        for (int i = chosen.size() - 1; i >= 0; i--) {
+            out.write(chosen.get(i), 0, chosen.get(i).length);
+        }
+        return out.toByteArray();
+    }
+}
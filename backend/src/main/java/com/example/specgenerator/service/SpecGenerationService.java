@@ -0,0 +1,239 @@
+package com.example.specgenerator.service;
+
+import com.example.specgenerator.model.GeneratedSpec;
+import com.example.specgenerator.model.Project;
+import com.example.specgenerator.model.SpecSection;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+
+@Service
+public class SpecGenerationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SpecGenerationService.class);
+
+    // One large prompt for all four artifacts
+    public static final String MODE_SINGLE = "single";
+
+    // One prompt per artifact, run concurrently
+    public static final String MODE_SECTIONS = "sections";
+
+    private static final List<Section> SECTIONS = Arrays.asList(
+            new Section("apiSpec", "an OpenAPI 3.0 specification in YAML",
+                    "# Error generating API spec", GeneratedSpec::setApiSpec),
+            new Section("dbSchema", "SQL CREATE TABLE statements for the database schema",
+                    "-- Error parsing AI response", GeneratedSpec::setDbSchema),
+            new Section("sequenceDiagram", "a Mermaid sequenceDiagram of the main flow",
+                    "sequenceDiagram\nNote right of User: Error parsing AI response", GeneratedSpec::setSequenceDiagram),
+            new Section("mockData", "JSON example data for the main entities",
+                    "{}", GeneratedSpec::setMockData));
+
+    @Autowired
+    AIService aiService;
+
+    @Value("${app.spec-generation.mode:single}")
+    private String defaultMode;
+
+    @Value("${app.spec-generation.section-workers:8}")
+    private int sectionWorkers;
+
+    @Value("${app.spec-generation.section-retries:1}")
+    private int sectionRetries;
+
+    private ThreadPoolExecutor sectionExecutor;
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger threadCount = new AtomicInteger();
+        // Sections queue instead of running on the caller, so the pool size is the real cap on
+        // concurrent section calls; the queue is bounded by the callers, at most 4 sections each
+        int size = sectionPoolSize();
+        sectionExecutor = new ThreadPoolExecutor(size, size, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), r -> {
+                    Thread t = new Thread(r, "spec-section-" + threadCount.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        sectionExecutor.shutdownNow();
+    }
+
+    // Calls the model and maps its answer onto a new, unsaved GeneratedSpec.
+    public GeneratedSpec generate(Project project, String requirement, boolean bypassCache) {
+        return generate(project, requirement, bypassCache, null);
+    }
+
+    public GeneratedSpec generate(Project project, String requirement, boolean bypassCache, String mode) {
+        String effectiveMode = mode == null ? defaultMode : mode;
+        if (MODE_SECTIONS.equals(effectiveMode)) {
+            return generateBySection(project, requirement, bypassCache);
+        }
+
+        // Failures propagate instead of being stored as the spec's content
+        String aiResponse = aiService.generateSpecJsonOrThrow(buildPrompt(requirement), bypassCache);
+        return toSpec(project, requirement, aiResponse);
+    }
+
+    public String buildPrompt(String requirement) {
+        // Generate content using AI
+        return "You are a technical architect. Based on the following requirement, generate a technical specification in JSON format. "
+                +
+                "The JSON object MUST contain exactly these four keys: " +
+                "'apiSpec' (OpenAPI 3.0 YAML or JSON string), " +
+                "'dbSchema' (SQL create table statements), " +
+                "'sequenceDiagram' (Mermaid sequenceDiagram syntax), " +
+                "'mockData' (JSON example data). " +
+                "Do not include markdown code blocks (```json) in the response, just the raw JSON object. " +
+                "Requirement: " + requirement;
+    }
+
+    public GeneratedSpec toSpec(Project project, String requirement, String aiResponse) {
+        GeneratedSpec spec = new GeneratedSpec();
+        spec.setProject(project);
+        spec.setRequirementDescription(requirement);
+
+        // Tolerates fences, chatter and a cut-off tail; only a hopeless answer hits the fallback
+        Map<String, String> parsed = SpecJsonExtractor.extract(aiResponse, SpecSection.NAMES);
+        if (!parsed.isEmpty()) {
+            spec.setApiSpec(parsed.getOrDefault("apiSpec", aiResponse));
+            spec.setDbSchema(parsed.getOrDefault("dbSchema", "-- No DB Schema generated"));
+            spec.setSequenceDiagram(parsed.getOrDefault("sequenceDiagram",
+                    "sequenceDiagram\nNote right of User: Parsing failed or empty"));
+            spec.setMockData(parsed.getOrDefault("mockData", "{}"));
+        } else {
+            logger.warn("No spec sections found in AI response of {} chars", aiResponse == null ? 0 : aiResponse.length());
+            spec.setApiSpec(aiResponse);
+            spec.setDbSchema("-- Error parsing AI response");
+            spec.setSequenceDiagram("sequenceDiagram\nNote right of User: Error parsing AI response");
+            spec.setMockData("{}");
+        }
+
+        return spec;
+    }
+
+    /**
+     * Fans out one small prompt per artifact. Total latency is that of the slowest
+     * section rather than of one large answer, and a failed section is retried on its
+     * own; sections that still fail keep a placeholder while the others are kept. If no
+     * section succeeds, or the gateway refuses a call, the generation fails as a whole.
+     */
+    private GeneratedSpec generateBySection(Project project, String requirement, boolean bypassCache) {
+        GeneratedSpec spec = new GeneratedSpec();
+        spec.setProject(project);
+        spec.setRequirementDescription(requirement);
+
+        fitSectionPool();
+        List<Section> pending = new ArrayList<>(SECTIONS);
+        for (int attempt = 0; attempt <= sectionRetries && !pending.isEmpty(); attempt++) {
+            // A retry must reach the model again rather than a cached unusable answer
+            boolean skipCache = bypassCache || attempt > 0;
+            Map<Section, Future<String>> futures = new LinkedHashMap<>();
+            for (Section section : pending) {
+                String prompt = buildSectionPrompt(section, requirement);
+                futures.put(section, sectionExecutor.submit(() -> aiService.generateContentOrThrow(prompt, skipCache)));
+            }
+
+            List<Section> failed = new ArrayList<>();
+            for (Map.Entry<Section, Future<String>> entry : futures.entrySet()) {
+                Section section = entry.getKey();
+                try {
+                    String content = stripCodeFence(entry.getValue().get());
+                    if (content.isEmpty()) {
+                        throw new AIResponseException("Empty " + section.name);
+                    }
+                    section.setter.accept(spec, content);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    failed.add(section);
+                } catch (ExecutionException | RuntimeException e) {
+                    Throwable cause = e instanceof ExecutionException ? e.getCause() : e;
+                    if (cause instanceof AIUnavailableException) {
+                        // Gateway refused (limit or open breaker): no point retrying now, let the job back off
+                        futures.values().forEach(f -> f.cancel(true));
+                        throw (AIUnavailableException) cause;
+                    }
+                    logger.warn("Section {} failed on attempt {}: {}", section.name, attempt + 1, cause.getMessage());
+                    failed.add(section);
+                }
+            }
+            pending = failed;
+        }
+
+        if (pending.size() == SECTIONS.size()) {
+            throw new AIResponseException("No section could be generated");
+        }
+        for (Section section : pending) {
+            section.setter.accept(spec, section.fallback);
+        }
+        return spec;
+    }
+
+    // Never more section threads than the gateway currently lets through
+    private int sectionPoolSize() {
+        return Math.max(1, Math.min(sectionWorkers, aiService.getConcurrencyLimit()));
+    }
+
+    // Follows the adaptive gateway limit, which moves at runtime
+    private synchronized void fitSectionPool() {
+        int size = sectionPoolSize();
+        if (size > sectionExecutor.getMaximumPoolSize()) {
+            sectionExecutor.setMaximumPoolSize(size);
+            sectionExecutor.setCorePoolSize(size);
+        } else if (size < sectionExecutor.getCorePoolSize()) {
+            sectionExecutor.setCorePoolSize(size);
+            sectionExecutor.setMaximumPoolSize(size);
+        }
+    }
+
+    private String buildSectionPrompt(Section section, String requirement) {
+        return "You are a technical architect. Based on the following requirement, write " + section.description
+                + ". Return ONLY that content, without markdown code blocks or explanations. "
+                + "Requirement: " + requirement;
+    }
+
+    private String stripCodeFence(String text) {
+        String trimmed = text == null ? "" : text.trim();
+        if (trimmed.startsWith("```")) {
+            int firstNewline = trimmed.indexOf('\n');
+            int closing = trimmed.lastIndexOf("```");
+            if (firstNewline > 0 && closing > firstNewline) {
+                return trimmed.substring(firstNewline + 1, closing).trim();
+            }
+        }
+        return trimmed;
+    }
+
+    private static class Section {
+        final String name;
+        final String description;
+        final String fallback;
+        final BiConsumer<GeneratedSpec, String> setter;
+
+        Section(String name, String description, String fallback, BiConsumer<GeneratedSpec, String> setter) {
+            this.name = name;
+            this.description = description;
+            this.fallback = fallback;
+            this.setter = setter;
+        }
+    }
+}
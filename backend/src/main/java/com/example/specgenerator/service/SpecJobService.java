@@ -0,0 +1,438 @@
+package com.example.specgenerator.service;
+
+import com.example.specgenerator.model.GeneratedSpec;
+import com.example.specgenerator.model.Project;
+import com.example.specgenerator.model.SpecGenerationBatch;
+import com.example.specgenerator.model.SpecGenerationJob;
+import com.example.specgenerator.payload.response.SpecBatchResponse;
+import com.example.specgenerator.payload.response.SpecJobResponse;
+import com.example.specgenerator.repository.SpecGenerationBatchRepository;
+import com.example.specgenerator.repository.SpecGenerationJobRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.DigestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Persisted, asynchronous spec generation.
+ * <p>
+ * Jobs are stored in {@code spec_generation_jobs} and claimed by a poller with a
+ * conditional update, so they survive restarts and are never run by two workers at
+ * once. Claimed jobs run on a fixed-size worker pool; the poller only claims as many
+ * jobs as there are idle workers.
+ * <p>
+ * A batch is just a set of jobs inserted together, so it gets the same bounded
+ * parallelism and crash recovery: if the process dies, unfinished items are picked up
+ * again from the table and finished ones are not regenerated.
+ */
+@Service
+public class SpecJobService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SpecJobService.class);
+
+    @Autowired
+    SpecGenerationJobRepository jobRepository;
+
+    @Autowired
+    SpecGenerationBatchRepository batchRepository;
+
+    @Autowired
+    SpecSectionService specSectionService;
+
+    @Autowired
+    SpecGenerationService specGenerationService;
+
+    @Autowired
+    AIService aiService;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Value("${app.spec-jobs.workers:4}")
+    private int workers;
+
+    @Value("${app.spec-jobs.lease-ms:300000}")
+    private long leaseMs;
+
+    @Value("${app.spec-jobs.max-attempts:3}")
+    private int maxAttempts;
+
+    @Value("${app.spec-jobs.sse-timeout-ms:600000}")
+    private long sseTimeoutMs;
+
+    private final String workerId = "worker-" + UUID.randomUUID().toString().substring(0, 8);
+
+    private static final List<SpecGenerationJob.Status> ACTIVE = Arrays.asList(
+            SpecGenerationJob.Status.PENDING, SpecGenerationJob.Status.RUNNING);
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private final SingleFlight<String, SpecJobResponse> enqueueFlight = new SingleFlight<>();
+
+    private final Map<Long, List<SseEmitter>> subscribers = new ConcurrentHashMap<>();
+
+    private final Map<Long, List<SseEmitter>> batchSubscribers = new ConcurrentHashMap<>();
+
+    private ExecutorService executor;
+
+    private TransactionTemplate transactionTemplate;
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger threadCount = new AtomicInteger();
+        executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(workers), r -> {
+                    Thread t = new Thread(r, "spec-job-" + threadCount.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                });
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        // Jobs still running when we stop keep their lease and are re-claimed once it expires.
+        executor.shutdown();
+        executor.awaitTermination(30, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Queues a generation. Re-submitting a requirement that is still pending or running
+     * for the same project (double click, client retry) returns the existing job instead
+     * of generating and saving a second spec.
+     */
+    public SpecJobResponse enqueue(Project project, String requirement, boolean bypassCache, String mode) {
+        String requirementHash = DigestUtils.md5DigestAsHex(
+                AIResponseCache.normalize(requirement).getBytes(StandardCharsets.UTF_8));
+
+        return enqueueFlight.execute(project.getId() + ":" + requirementHash, () -> jobRepository
+                .findFirstByProjectIdAndRequirementHashAndStatusIn(project.getId(), requirementHash, ACTIVE)
+                .map(this::toResponse)
+                .orElseGet(() -> {
+                    SpecGenerationJob job = new SpecGenerationJob();
+                    job.setProject(project);
+                    job.setRequirement(requirement);
+                    job.setRequirementHash(requirementHash);
+                    job.setBypassCache(bypassCache);
+                    job.setGenerationMode(mode);
+                    return toResponse(jobRepository.save(job));
+                }));
+    }
+
+    /**
+     * Queues one job per distinct requirement. The batch row and all job rows are
+     * written in one transaction; the job inserts go out as a JDBC batch.
+     */
+    public SpecBatchResponse enqueueBatch(Project project, List<String> requirements, boolean bypassCache,
+            String mode) {
+        Set<String> seen = new HashSet<>();
+        List<SpecGenerationJob> jobs = new ArrayList<>();
+        for (String requirement : requirements) {
+            String requirementHash = DigestUtils.md5DigestAsHex(
+                    AIResponseCache.normalize(requirement).getBytes(StandardCharsets.UTF_8));
+            if (!seen.add(requirementHash)) {
+                continue; // the same story pasted twice
+            }
+            SpecGenerationJob job = new SpecGenerationJob();
+            job.setProject(project);
+            job.setRequirement(requirement);
+            job.setRequirementHash(requirementHash);
+            job.setBypassCache(bypassCache);
+            job.setGenerationMode(mode);
+            jobs.add(job);
+        }
+
+        SpecGenerationBatch batch = transactionTemplate.execute(status -> {
+            SpecGenerationBatch created = new SpecGenerationBatch();
+            created.setProject(project);
+            created.setItemCount(jobs.size());
+            batchRepository.save(created);
+            jobs.forEach(job -> job.setBatchId(created.getId()));
+            jobRepository.saveAll(jobs);
+            return created;
+        });
+        return toBatchResponse(batch, jobs.stream().map(this::toResponse).collect(Collectors.toList()));
+    }
+
+    // Jobs and batches are only visible to the member who owns their project
+    public boolean isJobOwnedBy(Long jobId, Long memberId) {
+        return jobRepository.existsByIdAndProjectMemberId(jobId, memberId);
+    }
+
+    public boolean isBatchOwnedBy(Long batchId, Long memberId) {
+        return batchRepository.existsByIdAndProjectMemberId(batchId, memberId);
+    }
+
+    public SpecBatchResponse getBatch(Long batchId) {
+        SpecGenerationBatch batch = findBatch(batchId);
+        List<SpecJobResponse> items = jobRepository.findByBatchIdOrderById(batchId).stream()
+                .map(this::toResponse)
+                .collect(Collectors.toList());
+        return toBatchResponse(batch, items);
+    }
+
+    // Re-queues the items that failed; completed items keep their spec
+    public long countFailedInBatch(Long batchId) {
+        return jobRepository.countByBatchIdAndStatusIn(batchId,
+                Collections.singleton(SpecGenerationJob.Status.FAILED));
+    }
+
+    public SpecBatchResponse retryBatch(Long batchId) {
+        findBatch(batchId);
+        jobRepository.retryFailedInBatch(batchId);
+        return getBatch(batchId);
+    }
+
+    /**
+     * Streams an "item" event whenever one of the batch's jobs changes state (the
+     * current state of every item is sent first) and a final "done" event with the
+     * counts once no item is pending or running.
+     */
+    public SseEmitter subscribeBatch(Long batchId) {
+        SpecBatchResponse current = getBatch(batchId);
+        SseEmitter emitter = new SseEmitter(sseTimeoutMs);
+        boolean finished = current.getPending() == 0 && current.getRunning() == 0;
+
+        if (!finished) {
+            List<SseEmitter> emitters = batchSubscribers.computeIfAbsent(batchId, id -> new CopyOnWriteArrayList<>());
+            emitters.add(emitter);
+            Runnable remove = () -> emitters.remove(emitter);
+            emitter.onCompletion(remove);
+            emitter.onTimeout(remove);
+            emitter.onError(e -> remove.run());
+        }
+
+        for (SpecJobResponse item : current.getItems()) {
+            send(emitter, "item", item);
+        }
+        if (finished) {
+            current.setItems(null);
+            send(emitter, "done", current);
+            emitter.complete();
+        }
+        return emitter;
+    }
+
+    public SpecJobResponse getStatus(Long jobId) {
+        SpecGenerationJob job = jobRepository.findById(jobId)
+                .orElseThrow(() -> new RuntimeException("錯誤：找不到生成工作"));
+        return toResponse(job);
+    }
+
+    public SseEmitter subscribe(Long jobId) {
+        SpecJobResponse current = getStatus(jobId);
+        SseEmitter emitter = new SseEmitter(sseTimeoutMs);
+
+        if (isFinished(current)) {
+            send(emitter, current);
+            emitter.complete();
+            return emitter;
+        }
+
+        List<SseEmitter> emitters = subscribers.computeIfAbsent(jobId, id -> new CopyOnWriteArrayList<>());
+        emitters.add(emitter);
+        Runnable remove = () -> emitters.remove(emitter);
+        emitter.onCompletion(remove);
+        emitter.onTimeout(remove);
+        emitter.onError(e -> remove.run());
+        send(emitter, current);
+        return emitter;
+    }
+
+    @Scheduled(fixedDelayString = "${app.spec-jobs.poll-interval-ms:500}")
+    public void dispatch() {
+        int idle = workers - inFlight.get();
+        if (idle <= 0 || !aiService.isAcceptingCalls()) {
+            return; // leave jobs queued while the AI gateway is saturated or its circuit is open
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime staleBefore = now.minusNanos(leaseMs * 1_000_000L);
+        jobRepository.failExhausted(staleBefore, maxAttempts, "Generation abandoned after " + maxAttempts + " attempts",
+                now);
+
+        List<Long> candidates = jobRepository.findClaimableIds(staleBefore, PageRequest.of(0, idle));
+        for (Long jobId : candidates) {
+            if (jobRepository.claim(jobId, workerId, now, staleBefore, maxAttempts) == 0) {
+                continue; // another worker got there first
+            }
+            inFlight.incrementAndGet();
+            publish(jobId);
+            try {
+                executor.execute(() -> {
+                    try {
+                        run(jobId);
+                    } finally {
+                        inFlight.decrementAndGet();
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                // Shutting down: hand the job back rather than leaving it leased to a worker that won't run it
+                inFlight.decrementAndGet();
+                jobRepository.release(jobId, workerId);
+                logger.warn("Spec job {} rejected by the worker pool, re-queueing", jobId);
+                publish(jobId);
+                return;
+            }
+        }
+    }
+
+    private void run(Long jobId) {
+        try {
+            SpecGenerationJob job = jobRepository.findWithProjectById(jobId)
+                    .orElseThrow(() -> new IllegalStateException("Job " + jobId + " disappeared"));
+            if (job.getProject().getDeletedAt() != null) {
+                throw new IllegalStateException("錯誤：專案已刪除");
+            }
+
+            GeneratedSpec spec = specGenerationService.generate(job.getProject(), job.getRequirement(),
+                    Boolean.TRUE.equals(job.getBypassCache()), job.getGenerationMode());
+
+            // Saving the spec and completing the job commit together; if our lease was
+            // taken over in the meantime the spec is rolled back instead of duplicated.
+            Boolean completed = transactionTemplate.execute(status -> {
+                GeneratedSpec saved = specSectionService.save(spec);
+                if (jobRepository.complete(jobId, workerId, saved.getId(), LocalDateTime.now()) == 0) {
+                    status.setRollbackOnly();
+                    return false;
+                }
+                return true;
+            });
+            if (!Boolean.TRUE.equals(completed)) {
+                logger.warn("Lost lease on spec job {}, discarding result", jobId);
+            }
+        } catch (AIUnavailableException e) {
+            logger.info("AI gateway refused spec job {}, re-queueing: {}", jobId, e.getReason());
+            jobRepository.release(jobId, workerId);
+        } catch (Exception e) {
+            logger.error("Spec job {} failed", jobId, e);
+            jobRepository.fail(jobId, workerId, String.valueOf(e.getMessage()), LocalDateTime.now());
+        }
+        publish(jobId);
+    }
+
+    private void publish(Long jobId) {
+        List<SseEmitter> emitters = subscribers.get(jobId);
+        boolean jobWatched = emitters != null && !emitters.isEmpty();
+        if (!jobWatched && batchSubscribers.isEmpty()) {
+            return;
+        }
+        SpecJobResponse current = getStatus(jobId);
+        if (jobWatched) {
+            for (SseEmitter emitter : emitters) {
+                send(emitter, current);
+                if (isFinished(current)) {
+                    emitter.complete();
+                }
+            }
+            if (isFinished(current)) {
+                subscribers.remove(jobId);
+            }
+        }
+        if (current.getBatchId() != null) {
+            publishBatchItem(current);
+        }
+    }
+
+    private void publishBatchItem(SpecJobResponse item) {
+        Long batchId = item.getBatchId();
+        List<SseEmitter> emitters = batchSubscribers.get(batchId);
+        if (emitters == null || emitters.isEmpty()) {
+            return;
+        }
+        for (SseEmitter emitter : emitters) {
+            send(emitter, "item", item);
+        }
+        if (!isFinished(item) || jobRepository.countByBatchIdAndStatusIn(batchId, ACTIVE) > 0) {
+            return;
+        }
+        // Items finishing at the same time all see zero active jobs; only the one that removes the entry reports
+        if (batchSubscribers.remove(batchId, emitters)) {
+            SpecBatchResponse summary = toBatchResponse(findBatch(batchId), null);
+            for (SseEmitter emitter : emitters) {
+                send(emitter, "done", summary);
+                emitter.complete();
+            }
+        }
+    }
+
+    private void send(SseEmitter emitter, SpecJobResponse status) {
+        send(emitter, "status", status);
+    }
+
+    private void send(SseEmitter emitter, String name, Object data) {
+        try {
+            emitter.send(SseEmitter.event().name(name).data(data));
+        } catch (IOException | IllegalStateException e) {
+            emitter.completeWithError(e);
+        }
+    }
+
+    private SpecGenerationBatch findBatch(Long batchId) {
+        return batchRepository.findById(batchId)
+                .orElseThrow(() -> new RuntimeException("錯誤：找不到批次生成工作"));
+    }
+
+    private SpecBatchResponse toBatchResponse(SpecGenerationBatch batch, List<SpecJobResponse> items) {
+        Map<SpecGenerationJob.Status, Long> counts = new EnumMap<>(SpecGenerationJob.Status.class);
+        for (Object[] row : jobRepository.countByStatusForBatch(batch.getId())) {
+            counts.put((SpecGenerationJob.Status) row[0], (Long) row[1]);
+        }
+        return new SpecBatchResponse(batch.getId(),
+                batch.getProject().getId(),
+                batch.getItemCount(),
+                counts.getOrDefault(SpecGenerationJob.Status.PENDING, 0L),
+                counts.getOrDefault(SpecGenerationJob.Status.RUNNING, 0L),
+                counts.getOrDefault(SpecGenerationJob.Status.COMPLETED, 0L),
+                counts.getOrDefault(SpecGenerationJob.Status.FAILED, 0L),
+                batch.getCreatedAt(),
+                items);
+    }
+
+    private boolean isFinished(SpecJobResponse response) {
+        return SpecGenerationJob.Status.COMPLETED.name().equals(response.getStatus())
+                || SpecGenerationJob.Status.FAILED.name().equals(response.getStatus());
+    }
+
+    private SpecJobResponse toResponse(SpecGenerationJob job) {
+        return new SpecJobResponse(job.getId(),
+                job.getProject().getId(),
+                job.getBatchId(),
+                job.getStatus().name(),
+                job.getSpecId(),
+                job.getErrorMessage(),
+                job.getCreatedAt(),
+                job.getFinishedAt());
+    }
+}
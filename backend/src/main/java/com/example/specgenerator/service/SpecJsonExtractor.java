@@ -0,0 +1,168 @@
+package com.example.specgenerator.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.json.JsonReadFeature;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Pulls named string members out of a model answer that should be one JSON object but
+ * may come wrapped in a markdown fence, surrounded by chatter, cut off, or slightly
+ * malformed.
+ * <p>
+ * The answer is read by one shared, lenient streaming parser straight from the string,
+ * starting at the first brace; no tree is built and the buffer is not copied. Only the
+ * wanted members are materialized: a non-string value (mockData sent as an object) is
+ * kept as its JSON source text, members inside a wrapper object are found as well, and
+ * whatever was complete before a syntax error or a truncated end is kept.
+ */
+final class SpecJsonExtractor {
+
+    private static final JsonFactory FACTORY = JsonFactory.builder()
+            .enable(JsonReadFeature.ALLOW_UNESCAPED_CONTROL_CHARS)
+            .enable(JsonReadFeature.ALLOW_BACKSLASH_ESCAPING_ANY_CHARACTER)
+            .enable(JsonReadFeature.ALLOW_SINGLE_QUOTES)
+            .enable(JsonReadFeature.ALLOW_UNQUOTED_FIELD_NAMES)
+            .enable(JsonReadFeature.ALLOW_TRAILING_COMMA)
+            .enable(JsonReadFeature.ALLOW_JAVA_COMMENTS)
+            .build();
+
+    // Braces in the chatter before the object are skipped, within reason
+    private static final int MAX_START_ATTEMPTS = 3;
+
+    private SpecJsonExtractor() {
+    }
+
+    /**
+     * Returns the members found, in the order they appeared. Names are matched exactly or,
+     * failing that, ignoring case, underscores and dashes (api_spec for apiSpec).
+     */
+    static Map<String, String> extract(String text, Collection<String> names) {
+        Map<String, String> found = new LinkedHashMap<>();
+        if (text == null) {
+            return found;
+        }
+        String trimmed = text.trim();
+        if (trimmed.startsWith("\"")) {
+            // The whole object sent again as one JSON string
+            String decoded = decodeString(trimmed);
+            if (decoded != null) {
+                return extract(decoded, names);
+            }
+        }
+
+        int start = text.indexOf('{');
+        for (int attempt = 0; start >= 0 && attempt < MAX_START_ATTEMPTS && found.isEmpty(); attempt++) {
+            readObject(text, start, names, found);
+            start = text.indexOf('{', start + 1);
+        }
+        return found;
+    }
+
+    private static void readObject(String text, int start, Collection<String> names, Map<String, String> found) {
+        try {
+            Reader reader = new StringReader(text);
+            reader.skip(start);
+            try (JsonParser parser = FACTORY.createParser(reader)) {
+                if (parser.nextToken() == JsonToken.START_OBJECT) {
+                    readMembers(parser, text, start, names, found);
+                }
+            }
+        } catch (IOException e) {
+            // Broken or cut off from here on; the members read so far are kept
+        }
+    }
+
+    /**
+     * Reads up to the END_OBJECT matching the current START_OBJECT. A scalar is only kept
+     * once the token after it parses, or once a separator follows it when that token is
+     * broken, so a string cut short by a stray quote is dropped instead of being stored half.
+     */
+    private static void readMembers(JsonParser parser, String text, int offset, Collection<String> names,
+            Map<String, String> found) throws IOException {
+        String pendingName = null;
+        String pendingValue = null;
+        int pendingEnd = 0;
+        while (true) {
+            JsonToken token;
+            try {
+                token = parser.nextToken();
+            } catch (IOException e) {
+                // The parser reads ahead into the next member's value, which may be the broken part
+                if (pendingName != null && separatorFollows(text, offset + pendingEnd)) {
+                    found.put(pendingName, pendingValue);
+                }
+                throw e;
+            }
+            if (pendingName != null) {
+                found.put(pendingName, pendingValue);
+                pendingName = null;
+            }
+            if (token != JsonToken.FIELD_NAME || found.size() == names.size()) {
+                return;
+            }
+
+            String name = canonicalName(parser.getCurrentName(), names);
+            JsonToken value = parser.nextToken();
+            if (name != null && !found.containsKey(name)) {
+                if (value == JsonToken.START_OBJECT || value == JsonToken.START_ARRAY) {
+                    int from = (int) parser.getTokenLocation().getCharOffset();
+                    parser.skipChildren();
+                    int to = (int) parser.getCurrentLocation().getCharOffset();
+                    found.put(name, text.substring(offset + from, offset + to));
+                } else if (value != JsonToken.VALUE_NULL) {
+                    pendingName = name;
+                    pendingValue = parser.getText();
+                    pendingEnd = (int) parser.getCurrentLocation().getCharOffset();
+                }
+            } else if (value == JsonToken.START_OBJECT) {
+                readMembers(parser, text, offset, names, found);
+            } else {
+                parser.skipChildren();
+            }
+        }
+    }
+
+    private static boolean separatorFollows(String text, int from) {
+        for (int i = from; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (!Character.isWhitespace(c)) {
+                return c == ',' || c == '}';
+            }
+        }
+        return false;
+    }
+
+    private static String canonicalName(String name, Collection<String> names) {
+        if (names.contains(name)) {
+            return name;
+        }
+        String folded = fold(name);
+        for (String candidate : names) {
+            if (fold(candidate).equals(folded)) {
+                return candidate;
+            }
+        }
+        return null;
+    }
+
+    private static String fold(String name) {
+        return name.replace("_", "").replace("-", "").toLowerCase(Locale.ROOT);
+    }
+
+    private static String decodeString(String text) {
+        try (JsonParser parser = FACTORY.createParser(text)) {
+            return parser.nextToken() == JsonToken.VALUE_STRING ? parser.getText() : null;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.specgenerator.service;
+
+import com.example.specgenerator.payload.response.SpecSummaryPageResponse;
+import com.example.specgenerator.repository.GeneratedSpecRepository;
+import com.example.specgenerator.repository.SpecRevision;
+import com.example.specgenerator.repository.SpecSummary;
+import com.example.specgenerator.repository.SpecVersion;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Listing side for specs that avoids loading artifacts nobody asked for: summaries come
+ * from a projection with keyset pagination.
+ */
+@Service
+public class SpecQueryService {
+
+    @Autowired
+    GeneratedSpecRepository specRepository;
+
+    @Value("${app.spec-listing.default-page-size:20}")
+    private int defaultPageSize;
+
+    @Value("${app.spec-listing.max-page-size:100}")
+    private int maxPageSize;
+
+    public SpecSummaryPageResponse listSummaries(Long projectId, String cursor, Integer limit) {
+        int pageSize = limit == null ? defaultPageSize : Math.max(1, Math.min(maxPageSize, limit));
+        // One extra row tells us whether another page exists without a count query
+        PageRequest page = PageRequest.of(0, pageSize + 1);
+
+        List<SpecSummary> rows;
+        if (cursor == null || cursor.isEmpty()) {
+            rows = specRepository.findSummaries(projectId, page);
+        } else {
+            Cursor position = decodeCursor(cursor);
+            rows = specRepository.findSummariesBefore(projectId, position.createdAt, position.id, page);
+        }
+
+        String nextCursor = null;
+        if (rows.size() > pageSize) {
+            rows = rows.subList(0, pageSize);
+            SpecSummary last = rows.get(pageSize - 1);
+            nextCursor = encodeCursor(last.getCreatedAt(), last.getId());
+        }
+        return new SpecSummaryPageResponse(rows, nextCursor);
+    }
+
+    public SpecRevision specRevision(Long specId) {
+        return specRepository.findRevisionById(specId);
+    }
+
+    public SpecVersion projectSpecsVersion(Long projectId) {
+        return specRepository.findVersionByProjectId(projectId);
+    }
+
+    // Opaque to clients; LocalDateTime.toString keeps sub-millisecond precision so ties stay ordered by id
+    private String encodeCursor(LocalDateTime createdAt, Long id) {
+        String raw = createdAt + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private Cursor decodeCursor(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.indexOf('|');
+            return new Cursor(LocalDateTime.parse(raw.substring(0, separator)),
+                    Long.valueOf(raw.substring(separator + 1)));
+        } catch (RuntimeException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "錯誤：無效的分頁游標");
+        }
+    }
+
+    private static final class Cursor {
+        final LocalDateTime createdAt;
+        final Long id;
+
+        Cursor(LocalDateTime createdAt, Long id) {
+            this.createdAt = createdAt;
+            this.id = id;
+        }
+    }
+}
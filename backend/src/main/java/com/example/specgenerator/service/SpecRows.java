@@ -0,0 +1,39 @@
+package com.example.specgenerator.service;
+
+import com.example.specgenerator.model.GeneratedSpec;
+import com.example.specgenerator.repository.SpecExportRow;
+
+import java.util.Iterator;
+import java.util.function.BiConsumer;
+
+// Reassembles specs from section rows ordered by spec id, handing each to the consumer with its project id
+final class SpecRows {
+
+    private SpecRows() {
+    }
+
+    static void forEachSpec(Iterator<SpecExportRow> rows, BiConsumer<Long, GeneratedSpec> consumer) {
+        GeneratedSpec current = null;
+        Long projectId = null;
+        while (rows.hasNext()) {
+            SpecExportRow row = rows.next();
+            if (current == null || !current.getId().equals(row.getSpecId())) {
+                if (current != null) {
+                    consumer.accept(projectId, current);
+                }
+                current = new GeneratedSpec();
+                current.setId(row.getSpecId());
+                current.setRequirementDescription(row.getRequirementDescription());
+                current.setCreatedAt(row.getCreatedAt());
+                projectId = row.getProjectId();
+            }
+            if (row.getName() != null) {
+                current.setSection(row.getName(),
+                        row.getCompressedContent() != null ? row.getCompressedContent() : row.getContent());
+            }
+        }
+        if (current != null) {
+            consumer.accept(projectId, current);
+        }
+    }
+}
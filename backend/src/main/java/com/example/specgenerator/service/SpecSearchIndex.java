@@ -0,0 +1,504 @@
+package com.example.specgenerator.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * In-memory inverted index over specs, scored with BM25.
+ * <p>
+ * Each indexed spec gets an internal document number, assigned in increasing order, so
+ * every posting list is sorted just by appending to it. Postings are delta and
+ * variable-byte encoded with a skip entry every {@value #SKIP_INTERVAL} postings, which
+ * keeps a million specs in a few hundred megabytes and lets conjunctive queries jump
+ * through long lists. Updating a spec deletes its old document and appends a new one;
+ * deleted documents are dropped and the numbers compacted once they pile up. Each
+ * project also has a document list, which becomes part of the intersection when the
+ * caller's projects hold fewer specs than the rarest query term.
+ * <p>
+ * Not thread-safe; {@link SpecSearchService} guards it with a read/write lock.
+ */
+final class SpecSearchIndex {
+
+    // Field order of the texts passed to put(); a field's bit is set in the postings it matched
+    static final List<String> FIELDS = Collections.unmodifiableList(Arrays.asList(
+            "requirementDescription", "apiSpec", "dbSchema", "sequenceDiagram", "mockData"));
+
+    // Term frequency multiplier per field; the requirement is short and says what the spec is about
+    private static final int[] FIELD_WEIGHTS = { 3, 1, 1, 1, 1 };
+
+    private static final int SKIP_INTERVAL = 64;
+
+    private static final float K1 = 1.2f;
+
+    private static final float B = 0.75f;
+
+    private static final int[] EMPTY = new int[0];
+
+    private final Map<String, Postings> postings = new HashMap<>();
+
+    private final Map<Long, Postings> projectDocs = new HashMap<>();
+
+    private final LongIntMap docBySpec = new LongIntMap();
+
+    private final BitSet deleted = new BitSet();
+
+    private long[] specIds = new long[1024];
+
+    private long[] projectIds = new long[1024];
+
+    private int[] lengths = new int[1024];
+
+    private int docCount;
+
+    private int liveCount;
+
+    private long totalLength;
+
+    static final class Hit {
+        final long specId;
+        final long projectId;
+        final float score;
+        final int fieldMask;
+
+        Hit(long specId, long projectId, float score, int fieldMask) {
+            this.specId = specId;
+            this.projectId = projectId;
+            this.score = score;
+            this.fieldMask = fieldMask;
+        }
+    }
+
+    static final class Result {
+        final List<Hit> hits;
+        final int matches;
+
+        Result(List<Hit> hits, int matches) {
+            this.hits = hits;
+            this.matches = matches;
+        }
+    }
+
+    int size() {
+        return liveCount;
+    }
+
+    // Adds or replaces a spec; texts follow FIELDS and may contain nulls
+    void put(long specId, long projectId, String[] texts) {
+        remove(specId);
+
+        Map<String, int[]> terms = new HashMap<>(); // term -> {weighted frequency, field mask}
+        int[] length = new int[1];
+        for (int field = 0; field < texts.length; field++) {
+            int weight = FIELD_WEIGHTS[field];
+            int bit = 1 << field;
+            SpecTokenizer.tokenize(texts[field], (term, compound) -> {
+                int[] entry = terms.computeIfAbsent(term, key -> new int[2]);
+                entry[0] += weight;
+                entry[1] |= bit;
+                if (!compound) {
+                    length[0]++;
+                }
+            });
+        }
+
+        int doc = docCount++;
+        if (doc == specIds.length) {
+            int capacity = specIds.length * 2;
+            specIds = Arrays.copyOf(specIds, capacity);
+            projectIds = Arrays.copyOf(projectIds, capacity);
+            lengths = Arrays.copyOf(lengths, capacity);
+        }
+        specIds[doc] = specId;
+        projectIds[doc] = projectId;
+        lengths[doc] = length[0];
+        for (Map.Entry<String, int[]> term : terms.entrySet()) {
+            postings.computeIfAbsent(term.getKey(), key -> new Postings())
+                    .add(doc, term.getValue()[0], term.getValue()[1]);
+        }
+        projectDocs.computeIfAbsent(projectId, key -> new Postings()).add(doc, 0, 0);
+        docBySpec.put(specId, doc);
+        liveCount++;
+        totalLength += length[0];
+    }
+
+    void remove(long specId) {
+        int doc = docBySpec.remove(specId);
+        if (doc < 0) {
+            return;
+        }
+        deleted.set(doc);
+        liveCount--;
+        totalLength -= lengths[doc];
+    }
+
+    /**
+     * Specs of the given projects containing every required term, ranked by BM25 over
+     * required and optional terms.
+     */
+    Result search(List<String> required, List<String> optional, Collection<Long> projects, int limit) {
+        if (required.isEmpty() || projects.isEmpty() || liveCount == 0) {
+            return new Result(Collections.emptyList(), 0);
+        }
+        List<Postings> lists = new ArrayList<>();
+        for (String term : required) {
+            Postings list = postings.get(term);
+            if (list == null) {
+                return new Result(Collections.emptyList(), 0);
+            }
+            lists.add(list);
+        }
+        // Drive the intersection from the rarest term
+        lists.sort(Comparator.comparingInt((Postings list) -> list.count));
+
+        Cursor[] cursors = new Cursor[lists.size()];
+        float[] idf = new float[lists.size()];
+        for (int i = 0; i < cursors.length; i++) {
+            cursors[i] = new Cursor(lists.get(i));
+            idf[i] = idf(lists.get(i).count);
+        }
+
+        // A small scope drives the intersection; a large one is cheaper to check per candidate
+        long scopeSize = 0;
+        for (Long project : projects) {
+            Postings docs = projectDocs.get(project);
+            scopeSize += docs == null ? 0 : docs.count;
+        }
+        if (scopeSize == 0) {
+            return new Result(Collections.emptyList(), 0);
+        }
+        Cursor[] driving = cursors;
+        boolean filterByProject = scopeSize >= lists.get(0).count;
+        if (!filterByProject) {
+            driving = new Cursor[cursors.length + 1];
+            driving[0] = new Cursor(scope(projects, (int) scopeSize));
+            System.arraycopy(cursors, 0, driving, 1, cursors.length);
+        }
+
+        List<Cursor> optionalCursors = new ArrayList<>();
+        List<Float> optionalIdf = new ArrayList<>();
+        for (String term : optional) {
+            Postings list = postings.get(term);
+            if (list != null) {
+                optionalCursors.add(new Cursor(list));
+                optionalIdf.add(idf(list.count));
+            }
+        }
+
+        float averageLength = Math.max(1f, (float) totalLength / liveCount);
+        PriorityQueue<Hit> top = new PriorityQueue<>(limit + 1, Comparator.comparingDouble((Hit hit) -> hit.score));
+        int matches = 0;
+        int target = 0;
+        Cursor lead = driving[0];
+
+        candidates:
+        while (lead.advance(target)) {
+            int doc = lead.doc;
+            for (int i = 1; i < driving.length; i++) {
+                if (!driving[i].advance(doc)) {
+                    break candidates;
+                }
+                if (driving[i].doc > doc) {
+                    target = driving[i].doc;
+                    continue candidates;
+                }
+            }
+            target = doc + 1;
+            if (deleted.get(doc) || filterByProject && !projects.contains(projectIds[doc])) {
+                continue;
+            }
+
+            matches++;
+            float norm = K1 * (1 - B + B * lengths[doc] / averageLength);
+            float score = 0;
+            int fieldMask = 0;
+            for (int i = 0; i < cursors.length; i++) {
+                score += idf[i] * cursors[i].freq * (K1 + 1) / (cursors[i].freq + norm);
+                fieldMask |= cursors[i].mask;
+            }
+            for (int i = 0; i < optionalCursors.size(); i++) {
+                Cursor cursor = optionalCursors.get(i);
+                if (cursor.advance(doc) && cursor.doc == doc) {
+                    score += optionalIdf.get(i) * cursor.freq * (K1 + 1) / (cursor.freq + norm);
+                }
+            }
+
+            if (top.size() < limit) {
+                top.add(new Hit(specIds[doc], projectIds[doc], score, fieldMask));
+            } else if (score > top.peek().score) {
+                top.poll();
+                top.add(new Hit(specIds[doc], projectIds[doc], score, fieldMask));
+            }
+        }
+
+        List<Hit> hits = new ArrayList<>(top);
+        hits.sort(Comparator.comparingDouble((Hit hit) -> hit.score).reversed());
+        return new Result(hits, matches);
+    }
+
+    // Renumbers the live documents and rewrites the postings once deleted ones dominate
+    void compactIfNeeded() {
+        int dead = docCount - liveCount;
+        if (dead < 10_000 || dead < liveCount) {
+            return;
+        }
+        int[] renumbered = new int[docCount];
+        int next = 0;
+        for (int doc = 0; doc < docCount; doc++) {
+            renumbered[doc] = deleted.get(doc) ? -1 : next++;
+        }
+
+        compact(postings, renumbered);
+        compact(projectDocs, renumbered);
+
+        for (int doc = 0; doc < docCount; doc++) {
+            int target = renumbered[doc];
+            if (target >= 0) {
+                specIds[target] = specIds[doc];
+                projectIds[target] = projectIds[doc];
+                lengths[target] = lengths[doc];
+                docBySpec.put(specIds[target], target);
+            }
+        }
+        docCount = next;
+        deleted.clear();
+    }
+
+    private static <K> void compact(Map<K, Postings> lists, int[] renumbered) {
+        Iterator<Map.Entry<K, Postings>> entries = lists.entrySet().iterator();
+        while (entries.hasNext()) {
+            Map.Entry<K, Postings> entry = entries.next();
+            Postings compacted = new Postings();
+            Cursor cursor = new Cursor(entry.getValue());
+            while (cursor.next()) {
+                if (renumbered[cursor.doc] >= 0) {
+                    compacted.add(renumbered[cursor.doc], cursor.freq, cursor.mask);
+                }
+            }
+            if (compacted.count == 0) {
+                entries.remove();
+            } else {
+                entry.setValue(compacted);
+            }
+        }
+    }
+
+    // The documents of several projects as one sorted list
+    private Postings scope(Collection<Long> projects, int size) {
+        if (projects.size() == 1) {
+            return projectDocs.get(projects.iterator().next());
+        }
+        int[] docs = new int[size];
+        int count = 0;
+        for (Long project : projects) {
+            Postings list = projectDocs.get(project);
+            if (list != null) {
+                Cursor cursor = new Cursor(list);
+                while (cursor.next()) {
+                    docs[count++] = cursor.doc;
+                }
+            }
+        }
+        Arrays.sort(docs, 0, count);
+        Postings merged = new Postings();
+        for (int i = 0; i < count; i++) {
+            merged.add(docs[i], 0, 0);
+        }
+        return merged;
+    }
+
+    private float idf(int documentFrequency) {
+        return (float) Math.log(1 + (liveCount - documentFrequency + 0.5) / (documentFrequency + 0.5));
+    }
+
+    // Delta/varint-encoded (doc, frequency, field mask) triples with periodic skip entries
+    private static final class Postings {
+        byte[] data = new byte[16];
+        int size;
+        int count;
+        int lastDoc = -1;
+        // skipDocs[i] is the document before block i + 1, skipOffsets[i] where that block starts
+        int[] skipDocs = EMPTY;
+        int[] skipOffsets = EMPTY;
+        int skipCount;
+
+        void add(int doc, int frequency, int mask) {
+            if (count > 0 && count % SKIP_INTERVAL == 0) {
+                if (skipCount == skipDocs.length) {
+                    int capacity = Math.max(4, skipCount * 2);
+                    skipDocs = Arrays.copyOf(skipDocs, capacity);
+                    skipOffsets = Arrays.copyOf(skipOffsets, capacity);
+                }
+                skipDocs[skipCount] = lastDoc;
+                skipOffsets[skipCount] = size;
+                skipCount++;
+            }
+            if (size + 11 > data.length) {
+                data = Arrays.copyOf(data, Math.max(data.length * 2, size + 11));
+            }
+            writeVInt(doc - lastDoc);
+            writeVInt(frequency);
+            data[size++] = (byte) mask;
+            lastDoc = doc;
+            count++;
+        }
+
+        private void writeVInt(int value) {
+            while ((value & ~0x7F) != 0) {
+                data[size++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            data[size++] = (byte) value;
+        }
+    }
+
+    private static final class Cursor {
+        final Postings postings;
+        int offset;
+        int read;
+        int doc = -1;
+        int freq;
+        int mask;
+
+        Cursor(Postings postings) {
+            this.postings = postings;
+        }
+
+        boolean next() {
+            if (read == postings.count) {
+                doc = Integer.MAX_VALUE;
+                return false;
+            }
+            doc += readVInt();
+            freq = readVInt();
+            mask = postings.data[offset++] & 0xFF;
+            read++;
+            return true;
+        }
+
+        // Moves to the first posting at or after target; false once the list is exhausted
+        boolean advance(int target) {
+            if (doc >= target) {
+                return doc != Integer.MAX_VALUE;
+            }
+            int block = lastSkipBefore(target);
+            if (block >= 0 && postings.skipOffsets[block] > offset) {
+                offset = postings.skipOffsets[block];
+                doc = postings.skipDocs[block];
+                read = (block + 1) * SKIP_INTERVAL;
+            }
+            while (doc < target) {
+                if (!next()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private int lastSkipBefore(int target) {
+            int low = 0;
+            int high = postings.skipCount - 1;
+            int found = -1;
+            while (low <= high) {
+                int middle = (low + high) >>> 1;
+                if (postings.skipDocs[middle] < target) {
+                    found = middle;
+                    low = middle + 1;
+                } else {
+                    high = middle - 1;
+                }
+            }
+            return found;
+        }
+
+        private int readVInt() {
+            byte[] data = postings.data;
+            int value = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = data[offset++];
+                value |= (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            return value;
+        }
+    }
+
+    // Open-addressing spec id -> document map without boxing; spec ids are positive
+    private static final class LongIntMap {
+        long[] keys = new long[1024];
+        int[] values = new int[1024];
+        int size;
+
+        void put(long key, int value) {
+            if ((size + 1) * 2 > keys.length) {
+                resize();
+            }
+            int mask = keys.length - 1;
+            int i = slot(key, mask);
+            while (keys[i] != 0 && keys[i] != key) {
+                i = (i + 1) & mask;
+            }
+            if (keys[i] == 0) {
+                keys[i] = key;
+                size++;
+            }
+            values[i] = value;
+        }
+
+        int remove(long key) {
+            int mask = keys.length - 1;
+            int i = slot(key, mask);
+            while (keys[i] != key) {
+                if (keys[i] == 0) {
+                    return -1;
+                }
+                i = (i + 1) & mask;
+            }
+            int value = values[i];
+            // Backward-shift deletion keeps probe chains intact without tombstones
+            int j = i;
+            while (true) {
+                j = (j + 1) & mask;
+                if (keys[j] == 0) {
+                    break;
+                }
+                int home = slot(keys[j], mask);
+                if (i < j ? (home <= i || home > j) : (home <= i && home > j)) {
+                    keys[i] = keys[j];
+                    values[i] = values[j];
+                    i = j;
+                }
+            }
+            keys[i] = 0;
+            size--;
+            return value;
+        }
+
+        private void resize() {
+            long[] oldKeys = keys;
+            int[] oldValues = values;
+            keys = new long[oldKeys.length * 2];
+            values = new int[oldKeys.length * 2];
+            size = 0;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != 0) {
+                    put(oldKeys[i], oldValues[i]);
+                }
+            }
+        }
+
+        private static int slot(long key, int mask) {
+            return (int) ((key * 0x9E3779B97F4A7C15L) >>> 32) & mask;
+        }
+    }
+}
@@ -0,0 +1,236 @@
+package com.example.specgenerator.service;
+
+import com.example.specgenerator.model.GeneratedSpec;
+import com.example.specgenerator.payload.response.SpecSearchResponse;
+import com.example.specgenerator.payload.response.SpecSearchResult;
+import com.example.specgenerator.repository.GeneratedSpecRepository;
+import com.example.specgenerator.repository.ProjectRepository;
+import com.example.specgenerator.repository.SpecExportRow;
+import com.example.specgenerator.repository.SpecSearchHit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * Full-text search over spec requirements and artifacts, backed by an in-process
+ * {@link SpecSearchIndex}.
+ * <p>
+ * The index is built from the database in the background after startup and kept
+ * current from {@link SpecChangedEvent}s: changed spec ids are collected after their
+ * transaction commits and re-read in bulk every refresh interval, so writers never wait
+ * for indexing and results trail writes by about a second. Searches are limited to the
+ * caller's projects.
+ */
+@Service
+public class SpecSearchService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SpecSearchService.class);
+
+    @Autowired
+    GeneratedSpecRepository specRepository;
+
+    @Autowired
+    ProjectRepository projectRepository;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Value("${app.spec-search.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.spec-search.refresh-batch-size:1000}")
+    private int refreshBatchSize;
+
+    @Value("${app.spec-search.default-limit:20}")
+    private int defaultLimit;
+
+    @Value("${app.spec-search.max-limit:100}")
+    private int maxLimit;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Set<Long> dirty = ConcurrentHashMap.newKeySet();
+
+    private SpecSearchIndex index = new SpecSearchIndex();
+
+    private volatile boolean ready;
+
+    private TransactionTemplate readTemplate;
+
+    @PostConstruct
+    public void init() {
+        readTemplate = new TransactionTemplate(transactionManager);
+        readTemplate.setReadOnly(true);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildOnStartup() {
+        if (!enabled) {
+            return;
+        }
+        Thread builder = new Thread(this::rebuild, "spec-search-rebuild");
+        builder.setDaemon(true);
+        builder.start();
+    }
+
+    // Changes made while a rebuild runs stay queued and are applied on top of it
+    public void rebuild() {
+        long started = System.currentTimeMillis();
+        SpecSearchIndex fresh = new SpecSearchIndex();
+        readTemplate.executeWithoutResult(status -> {
+            try (Stream<SpecExportRow> rows = specRepository.streamAllExportRows()) {
+                SpecRows.forEachSpec(rows.iterator(), (projectId, spec) -> fresh.put(spec.getId(), projectId, texts(spec)));
+            }
+        });
+
+        lock.writeLock().lock();
+        try {
+            index = fresh;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        ready = true;
+        logger.info("Spec search index built: {} specs in {} ms", fresh.size(), System.currentTimeMillis() - started);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSpecChanged(SpecChangedEvent event) {
+        if (enabled) {
+            dirty.add(event.getSpecId());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.spec-search.refresh-interval-ms:1000}")
+    public void refresh() {
+        while (ready && !dirty.isEmpty()) {
+            List<Long> ids = new ArrayList<>(refreshBatchSize);
+            Iterator<Long> pending = dirty.iterator();
+            while (pending.hasNext() && ids.size() < refreshBatchSize) {
+                ids.add(pending.next());
+                pending.remove();
+            }
+
+            Map<Long, Long> projects = new HashMap<>();
+            Map<Long, GeneratedSpec> specs = new HashMap<>();
+            try {
+                SpecRows.forEachSpec(specRepository.findExportRowsBySpecIdIn(ids).iterator(), (projectId, spec) -> {
+                    projects.put(spec.getId(), projectId);
+                    specs.put(spec.getId(), spec);
+                });
+            } catch (RuntimeException e) {
+                dirty.addAll(ids);
+                logger.warn("Could not reload {} changed specs, retrying on the next refresh", ids.size(), e);
+                return;
+            }
+
+            lock.writeLock().lock();
+            try {
+                for (Long id : ids) {
+                    GeneratedSpec spec = specs.get(id);
+                    if (spec == null) {
+                        index.remove(id);
+                    } else {
+                        index.put(id, projects.get(id), texts(spec));
+                    }
+                }
+                index.compactIfNeeded();
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    public SpecSearchResponse search(Long memberId, String query, Long projectId, Integer limit) {
+        long started = System.nanoTime();
+        if (query == null || query.trim().isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "錯誤：請輸入搜尋關鍵字");
+        }
+        if (!ready) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "錯誤：搜尋索引建立中，請稍後再試");
+        }
+        int size = limit == null ? defaultLimit : Math.max(1, Math.min(maxLimit, limit));
+
+        Set<Long> projectIds = new HashSet<>(projectRepository.findIdsByMemberId(memberId));
+        if (projectId != null) {
+            if (!projectIds.contains(projectId)) {
+                throw new ResponseStatusException(HttpStatus.NOT_FOUND, "錯誤：找不到專案");
+            }
+            projectIds = Collections.singleton(projectId);
+        }
+
+        // Identifier parts must all match; whole identifiers only add to the score
+        Set<String> required = new LinkedHashSet<>();
+        Set<String> optional = new LinkedHashSet<>();
+        SpecTokenizer.tokenize(query, (term, compound) -> (compound ? optional : required).add(term));
+
+        Set<Long> scope = projectIds;
+        SpecSearchIndex.Result result;
+        lock.readLock().lock();
+        try {
+            result = index.search(new ArrayList<>(required), new ArrayList<>(optional), scope, size);
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        List<SpecSearchResult> items = new ArrayList<>(result.hits.size());
+        if (!result.hits.isEmpty()) {
+            Map<Long, SpecSearchHit> details = new HashMap<>();
+            List<Long> ids = new ArrayList<>();
+            result.hits.forEach(hit -> ids.add(hit.specId));
+            specRepository.findSearchHits(ids).forEach(hit -> details.put(hit.getId(), hit));
+            for (SpecSearchIndex.Hit hit : result.hits) {
+                SpecSearchHit detail = details.get(hit.specId);
+                if (detail != null) { // deleted since it was indexed
+                    items.add(new SpecSearchResult(hit.specId, hit.projectId, hit.score,
+                            detail.getRequirementSnippet(), detail.getCreatedAt(), fieldNames(hit.fieldMask)));
+                }
+            }
+        }
+        return new SpecSearchResponse(items, result.matches, (System.nanoTime() - started) / 1_000_000);
+    }
+
+    private String[] texts(GeneratedSpec spec) {
+        List<String> fields = SpecSearchIndex.FIELDS;
+        String[] texts = new String[fields.size()];
+        texts[0] = spec.getRequirementDescription();
+        for (int i = 1; i < texts.length; i++) {
+            texts[i] = spec.getSection(fields.get(i));
+        }
+        return texts;
+    }
+
+    private List<String> fieldNames(int mask) {
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < SpecSearchIndex.FIELDS.size(); i++) {
+            if ((mask & (1 << i)) != 0) {
+                names.add(SpecSearchIndex.FIELDS.get(i));
+            }
+        }
+        return names;
+    }
+}
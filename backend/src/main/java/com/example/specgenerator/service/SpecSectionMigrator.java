@@ -0,0 +1,169 @@
+package com.example.specgenerator.service;
+
+import com.example.specgenerator.model.SpecSection;
+import com.example.specgenerator.repository.GeneratedSpecRepository;
+import com.example.specgenerator.repository.SpecSectionRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Online migration of artifacts stored inline on generated_specs (api_spec, db_schema,
+ * sequence_diagram, mock_data) into spec_sections.
+ * <p>
+ * Rows are moved in small batches in the background, and any spec that is read or
+ * written before its batch comes up is moved on demand, so the application keeps
+ * serving while old rows are converted. Each spec is moved under a row lock and its
+ * inline columns are cleared in the same transaction, which makes the move idempotent
+ * across instances. Once nothing is left the legacy columns can be dropped by hand.
+ */
+@Component
+public class SpecSectionMigrator {
+
+    private static final Logger logger = LoggerFactory.getLogger(SpecSectionMigrator.class);
+
+    // Section name -> legacy column on generated_specs
+    private static final Map<String, String> LEGACY_COLUMNS = new LinkedHashMap<>();
+
+    static {
+        LEGACY_COLUMNS.put(SpecSection.API_SPEC, "api_spec");
+        LEGACY_COLUMNS.put(SpecSection.DB_SCHEMA, "db_schema");
+        LEGACY_COLUMNS.put(SpecSection.SEQUENCE_DIAGRAM, "sequence_diagram");
+        LEGACY_COLUMNS.put(SpecSection.MOCK_DATA, "mock_data");
+    }
+
+    private static final String PENDING_CONDITION =
+            "api_spec IS NOT NULL OR db_schema IS NOT NULL OR sequence_diagram IS NOT NULL OR mock_data IS NOT NULL";
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    DataSource dataSource;
+
+    @Autowired
+    GeneratedSpecRepository specRepository;
+
+    @Autowired
+    SpecSectionRepository sectionRepository;
+
+    @Autowired
+    SpecContentCodec codec;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    ApplicationEventPublisher eventPublisher;
+
+    @Value("${app.spec-sections.migration.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.spec-sections.migration.batch-size:200}")
+    private int batchSize;
+
+    private TransactionTemplate transactionTemplate;
+
+    // True while generated_specs still has the inline columns and they may hold data
+    private volatile boolean pending;
+
+    @PostConstruct
+    public void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        // Callers may be inside read-only transactions; the move always commits on its own
+        transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        pending = enabled && hasLegacyColumns();
+        if (pending) {
+            logger.info("Legacy inline spec artifacts found, migrating them to spec_sections");
+        }
+    }
+
+    public boolean isPending() {
+        return pending;
+    }
+
+    @Scheduled(fixedDelayString = "${app.spec-sections.migration.interval-ms:5000}", initialDelay = 5000)
+    public void migrateBatch() {
+        if (!pending) {
+            return;
+        }
+        List<Long> ids = jdbcTemplate.queryForList(
+                "SELECT id FROM generated_specs WHERE " + PENDING_CONDITION + " ORDER BY id LIMIT ?",
+                Long.class, batchSize);
+        if (ids.isEmpty()) {
+            pending = false;
+            logger.info("Spec section migration finished; the inline artifact columns of generated_specs can be dropped");
+            return;
+        }
+        for (Long id : ids) {
+            migrate(id);
+        }
+        logger.info("Migrated {} specs to spec_sections", ids.size());
+    }
+
+    // Moves one spec's inline artifacts, if it still has any
+    public void migrate(Long specId) {
+        if (!pending) {
+            return;
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            List<Map<String, String>> rows = jdbcTemplate.query(
+                    "SELECT api_spec, db_schema, sequence_diagram, mock_data FROM generated_specs WHERE id = ? AND ("
+                            + PENDING_CONDITION + ") FOR UPDATE",
+                    (rs, rowNum) -> {
+                        Map<String, String> values = new LinkedHashMap<>();
+                        for (Map.Entry<String, String> column : LEGACY_COLUMNS.entrySet()) {
+                            values.put(column.getKey(), rs.getString(column.getValue()));
+                        }
+                        return values;
+                    }, specId);
+            if (rows.isEmpty()) {
+                return;
+            }
+
+            for (Map.Entry<String, String> value : rows.get(0).entrySet()) {
+                // A section written after the upgrade is newer than the inline copy
+                if (value.getValue() == null
+                        || sectionRepository.findBySpecIdAndName(specId, value.getKey()).isPresent()) {
+                    continue;
+                }
+                SpecSection section = new SpecSection(specRepository.getReferenceById(specId), value.getKey());
+                section.updateContent(value.getValue(), codec.isEnabled());
+                sectionRepository.save(section);
+            }
+            jdbcTemplate.update("UPDATE generated_specs SET api_spec = NULL, db_schema = NULL, "
+                    + "sequence_diagram = NULL, mock_data = NULL WHERE id = ?", specId);
+            eventPublisher.publishEvent(new SpecChangedEvent(specId));
+        });
+    }
+
+    private boolean hasLegacyColumns() {
+        try (Connection connection = dataSource.getConnection()) {
+            DatabaseMetaData metaData = connection.getMetaData();
+            try (ResultSet columns = metaData.getColumns(null, null, "generated_specs", "api_spec")) {
+                return columns.next();
+            }
+        } catch (SQLException e) {
+            logger.warn("Could not inspect generated_specs for legacy artifact columns", e);
+            return false;
+        }
+    }
+}
@@ -0,0 +1,229 @@
+package com.example.specgenerator.service;
+
+import com.example.specgenerator.model.GeneratedSpec;
+import com.example.specgenerator.model.SpecSection;
+import com.example.specgenerator.payload.response.SpecSectionResponse;
+import com.example.specgenerator.repository.GeneratedSpecRepository;
+import com.example.specgenerator.repository.SpecSectionRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpStatus;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * Storage of spec artifacts in spec_sections. A spec row no longer carries its
+ * artifacts; they are attached to the transient fields of {@link GeneratedSpec} only
+ * when a caller asks for the whole spec, and single sections are read and written on
+ * their own.
+ */
+@Service
+public class SpecSectionService {
+
+    @Autowired
+    GeneratedSpecRepository specRepository;
+
+    @Autowired
+    SpecSectionRepository sectionRepository;
+
+    @Autowired
+    SpecContentCodec codec;
+
+    @Autowired
+    SpecSectionMigrator migrator;
+
+    @Autowired
+    ApplicationEventPublisher eventPublisher;
+
+    // Persists a new spec row together with every section it carries
+    @Transactional
+    public GeneratedSpec save(GeneratedSpec spec) {
+        GeneratedSpec saved = specRepository.save(spec);
+        for (String name : SpecSection.NAMES) {
+            String content = spec.getSection(name);
+            if (content == null) {
+                continue;
+            }
+            SpecSection section = new SpecSection(saved, name);
+            section.updateContent(content, codec.isEnabled());
+            sectionRepository.save(section);
+            saved.setSection(name, content);
+        }
+        eventPublisher.publishEvent(new SpecChangedEvent(saved.getId()));
+        return saved;
+    }
+
+    /**
+     * Applies a JSON Merge Patch (RFC 7396) to a spec. Only the members present are
+     * written: the named sections and requirementDescription. A null member clears the
+     * field. An optional "version" member must match the stored version.
+     */
+    @Transactional
+    public Optional<GeneratedSpec> patch(Long specId, Map<String, Object> patch) {
+        Long expectedVersion = null;
+        boolean requirementChanged = false;
+        String requirement = null;
+        Map<String, String> sections = new LinkedHashMap<>();
+
+        for (Map.Entry<String, Object> member : patch.entrySet()) {
+            String name = member.getKey();
+            Object value = member.getValue();
+            if (value != null && !(value instanceof String) && !"version".equals(name)) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "錯誤：欄位必須是字串: " + name);
+            }
+            if ("version".equals(name)) {
+                expectedVersion = toVersion(value);
+            } else if ("requirementDescription".equals(name)) {
+                requirementChanged = true;
+                requirement = (String) value;
+            } else if (SpecSection.isValidName(name)) {
+                sections.put(name, (String) value);
+            } else {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "錯誤：不支援的欄位: " + name);
+            }
+        }
+
+        Optional<GeneratedSpec> written = write(specId, expectedVersion, requirementChanged, requirement, sections);
+        return written.map(this::fillSections);
+    }
+
+    // Full replacement of the four artifacts, as sent by PUT /api/specs/{id}
+    @Transactional
+    public Optional<GeneratedSpec> replace(Long specId, GeneratedSpec details) {
+        Map<String, String> sections = new LinkedHashMap<>();
+        for (String name : SpecSection.NAMES) {
+            sections.put(name, details.getSection(name));
+        }
+        return write(specId, details.getVersion(), false, null, sections).map(this::fillSections);
+    }
+
+    @Transactional(readOnly = true)
+    public GeneratedSpec attachSections(GeneratedSpec spec) {
+        migrator.migrate(spec.getId());
+        return fillSections(spec);
+    }
+
+    // One query for all sections of the given specs
+    @Transactional(readOnly = true)
+    public List<GeneratedSpec> attachSections(List<GeneratedSpec> specs) {
+        if (specs.isEmpty()) {
+            return specs;
+        }
+        if (migrator.isPending()) {
+            specs.forEach(spec -> migrator.migrate(spec.getId()));
+        }
+        Map<Long, GeneratedSpec> byId = specs.stream()
+                .collect(Collectors.toMap(GeneratedSpec::getId, spec -> spec));
+        for (SpecSection section : sectionRepository.findBySpecIdIn(byId.keySet())) {
+            byId.get(section.getSpec().getId()).setSection(section.getName(), section.getContent());
+        }
+        return specs;
+    }
+
+    @Transactional(readOnly = true)
+    public Optional<SpecSectionResponse> getSection(Long specId, String name) {
+        checkName(name);
+        migrator.migrate(specId);
+        Optional<Long> version = specRepository.findVersionValueById(specId);
+        if (!version.isPresent()) {
+            return Optional.empty();
+        }
+        String content = sectionRepository.findBySpecIdAndName(specId, name)
+                .map(SpecSection::getContent)
+                .orElse(null);
+        return Optional.of(new SpecSectionResponse(specId, name, content, version.get()));
+    }
+
+    @Transactional
+    public Optional<SpecSectionResponse> putSection(Long specId, String name, String content, Long expectedVersion) {
+        checkName(name);
+        return write(specId, expectedVersion, false, null, Collections.singletonMap(name, content))
+                .map(spec -> new SpecSectionResponse(specId, name, content, spec.getVersion()));
+    }
+
+    @Transactional
+    public void delete(Long specId) {
+        sectionRepository.deleteBySpecId(specId);
+        specRepository.deleteById(specId);
+        eventPublisher.publishEvent(new SpecChangedEvent(specId));
+    }
+
+    /**
+     * Writes the given sections (and requirement) of one spec. Only those section rows
+     * are read and written, and the spec row is touched so its version is checked and
+     * bumped; with dynamic updates that UPDATE sets just updated_at and version.
+     */
+    private Optional<GeneratedSpec> write(Long specId, Long expectedVersion, boolean requirementChanged,
+            String requirement, Map<String, String> sections) {
+        // Move any inline copy first so the background migration cannot overwrite this write
+        migrator.migrate(specId);
+
+        Optional<GeneratedSpec> found = specRepository.findById(specId);
+        if (!found.isPresent()) {
+            return Optional.empty();
+        }
+        GeneratedSpec spec = found.get();
+        if (expectedVersion != null && !expectedVersion.equals(spec.getVersion())) {
+            throw conflict();
+        }
+
+        Map<String, SpecSection> existing = sectionRepository.findBySpecIdAndNameIn(specId, sections.keySet())
+                .stream()
+                .collect(Collectors.toMap(SpecSection::getName, section -> section));
+        for (Map.Entry<String, String> entry : sections.entrySet()) {
+            SpecSection section = existing.get(entry.getKey());
+            if (section == null) {
+                section = new SpecSection(spec, entry.getKey());
+            }
+            section.updateContent(entry.getValue(), codec.isEnabled());
+            sectionRepository.save(section);
+        }
+
+        if (requirementChanged) {
+            spec.setRequirementDescription(requirement);
+        }
+        spec.setUpdatedAt(LocalDateTime.now());
+        // Flush now so a concurrent writer surfaces here and the new version is returned
+        try {
+            specRepository.flush();
+        } catch (ObjectOptimisticLockingFailureException e) {
+            throw conflict();
+        }
+        eventPublisher.publishEvent(new SpecChangedEvent(specId));
+        return Optional.of(spec);
+    }
+
+    private ResponseStatusException conflict() {
+        return new ResponseStatusException(HttpStatus.CONFLICT, "錯誤：規格已被其他人修改，請重新載入後再試");
+    }
+
+    private GeneratedSpec fillSections(GeneratedSpec spec) {
+        for (SpecSection section : sectionRepository.findBySpecId(spec.getId())) {
+            spec.setSection(section.getName(), section.getContent());
+        }
+        return spec;
+    }
+
+    private Long toVersion(Object value) {
+        if (value instanceof Number) {
+            return ((Number) value).longValue();
+        }
+        throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "錯誤：version 必須是數字");
+    }
+
+    private void checkName(String name) {
+        if (!SpecSection.isValidName(name)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "錯誤：不支援的規格區段: " + name);
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.example.specgenerator.service;
+
+import com.example.specgenerator.model.GeneratedSpec;
+import com.example.specgenerator.model.Project;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Forwards Gemini output to the browser over SSE as it is produced.
+ * <p>
+ * Streams are relayed from a bounded pool rather than the request thread, so the
+ * servlet thread is released as soon as the emitter is returned. Events:
+ * {@code token} for each text fragment, then {@code spec} (generation) or
+ * {@code done} (refinement) with the final result, or {@code error}.
+ */
+@Service
+public class SpecStreamService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SpecStreamService.class);
+
+    @Autowired
+    AIService aiService;
+
+    @Autowired
+    SpecGenerationService specGenerationService;
+
+    @Autowired
+    SpecSectionService specSectionService;
+
+    @Value("${app.spec-stream.workers:8}")
+    private int workers;
+
+    @Value("${app.spec-stream.queue-capacity:16}")
+    private int queueCapacity;
+
+    @Value("${app.spec-stream.timeout-ms:300000}")
+    private long timeoutMs;
+
+    private ExecutorService executor;
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger threadCount = new AtomicInteger();
+        executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), r -> {
+                    Thread t = new Thread(r, "spec-stream-" + threadCount.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    public SseEmitter streamGeneration(Project project, String requirement, boolean bypassCache) {
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        submit(emitter, () -> {
+            String prompt = specGenerationService.buildPrompt(requirement);
+            String full = aiService.streamSpecContent(prompt, bypassCache, chunk -> sendToken(emitter, chunk));
+
+            GeneratedSpec spec = specSectionService.save(specGenerationService.toSpec(project, requirement, full));
+            emitter.send(SseEmitter.event().name("spec").data(spec));
+        });
+        return emitter;
+    }
+
+    public SseEmitter streamRefinement(String section, String currentContent, String instruction,
+            boolean bypassCache) {
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        submit(emitter, () -> {
+            String full = aiService.streamRefineContent(section, currentContent, instruction, bypassCache,
+                    chunk -> sendToken(emitter, chunk));
+            emitter.send(SseEmitter.event().name("done").data(Collections.singletonMap("refinedContent", full)));
+        });
+        return emitter;
+    }
+
+    private void submit(SseEmitter emitter, StreamTask task) {
+        try {
+            executor.execute(() -> {
+                try {
+                    task.run();
+                    emitter.complete();
+                } catch (Exception e) {
+                    logger.error("AI stream failed", e);
+                    try {
+                        emitter.send(SseEmitter.event().name("error").data("Error calling Gemini API: " + e.getMessage()));
+                        emitter.complete();
+                    } catch (IOException | IllegalStateException ignored) {
+                        emitter.completeWithError(e);
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Too many concurrent AI streams");
+        }
+    }
+
+    private void sendToken(SseEmitter emitter, String chunk) {
+        try {
+            emitter.send(SseEmitter.event().name("token").data(chunk));
+        } catch (IOException e) {
+            // Client went away; stop pulling from upstream
+            throw new IllegalStateException("Client disconnected", e);
+        }
+    }
+
+    private interface StreamTask {
+        void run() throws Exception;
+    }
+}
@@ -0,0 +1,143 @@
+package com.example.specgenerator.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Tokenizer for spec search, tuned for code rather than prose.
+ * <p>
+ * Identifiers are split at underscores and camelCase boundaries ({@code getUserById} gives
+ * get, user, by, id; {@code user_accounts} gives user, account) and the whole identifier is
+ * also emitted as a compound term so exact matches rank higher. URL paths and qualified SQL
+ * names fall apart at their punctuation. Han text has no word breaks, so runs of it are
+ * indexed as overlapping character bigrams.
+ */
+final class SpecTokenizer {
+
+    interface Sink {
+        // compound is true for a whole multi-part identifier, false for its parts and plain words
+        void accept(String term, boolean compound);
+    }
+
+    private static final int MAX_WORD_LENGTH = 64;
+
+    private static final Set<String> STOP_WORDS = new HashSet<>(Arrays.asList(
+            "a", "an", "and", "are", "as", "at", "be", "by", "for", "from", "in", "is", "it", "of", "on", "or",
+            "that", "the", "this", "to", "with"));
+
+    private SpecTokenizer() {
+    }
+
+    static void tokenize(String text, Sink sink) {
+        if (text == null) {
+            return;
+        }
+        int length = text.length();
+        int i = 0;
+        while (i < length) {
+            char c = text.charAt(i);
+            int start = i;
+            if (isHan(c)) {
+                while (i < length && isHan(text.charAt(i))) {
+                    i++;
+                }
+                emitHan(text, start, i, sink);
+            } else if (isWordChar(c)) {
+                while (i < length && isWordChar(text.charAt(i))) {
+                    i++;
+                }
+                emitWord(text.substring(start, i), sink);
+            } else {
+                i++;
+            }
+        }
+    }
+
+    private static void emitWord(String word, Sink sink) {
+        if (word.length() > MAX_WORD_LENGTH) {
+            return; // base64 blobs, hashes and the like
+        }
+        List<String> parts = new ArrayList<>();
+        int segments = splitIdentifier(word, parts);
+        if (segments > 1) {
+            String whole = trimUnderscores(word).toLowerCase(Locale.ROOT);
+            sink.accept(whole, true);
+        }
+        for (String part : parts) {
+            sink.accept(part, false);
+        }
+    }
+
+    // Adds the usable parts and returns how many segments the identifier had, stop words included
+    private static int splitIdentifier(String word, List<String> parts) {
+        int segments = 0;
+        int length = word.length();
+        int start = 0;
+        for (int i = 1; i <= length; i++) {
+            boolean boundary = i == length || word.charAt(i) == '_' || word.charAt(i - 1) == '_';
+            if (!boundary) {
+                char previous = word.charAt(i - 1);
+                char current = word.charAt(i);
+                // fooBar -> foo|Bar, v2Api -> v2|Api, HTTPServer -> HTTP|Server
+                boundary = (Character.isLowerCase(previous) || Character.isDigit(previous))
+                        && Character.isUpperCase(current)
+                        || Character.isUpperCase(previous) && Character.isUpperCase(current)
+                        && i + 1 < length && Character.isLowerCase(word.charAt(i + 1));
+            }
+            if (boundary) {
+                String part = word.substring(start, i);
+                if (!part.equals("_")) {
+                    segments++;
+                    String term = normalize(part.toLowerCase(Locale.ROOT));
+                    if (term.length() >= 2 && !STOP_WORDS.contains(term)) {
+                        parts.add(term);
+                    }
+                }
+                start = i;
+            }
+        }
+        return segments;
+    }
+
+    // Folds the plural of table and resource names (users -> user) without a real stemmer
+    private static String normalize(String term) {
+        if (term.length() > 3 && term.endsWith("s") && !term.endsWith("ss")) {
+            return term.substring(0, term.length() - 1);
+        }
+        return term;
+    }
+
+    private static void emitHan(String text, int start, int end, Sink sink) {
+        if (end - start == 1) {
+            sink.accept(text.substring(start, end), false);
+            return;
+        }
+        for (int i = start; i + 1 < end; i++) {
+            sink.accept(text.substring(i, i + 2), false);
+        }
+    }
+
+    private static String trimUnderscores(String word) {
+        int start = 0;
+        int end = word.length();
+        while (start < end && word.charAt(start) == '_') {
+            start++;
+        }
+        while (end > start && word.charAt(end - 1) == '_') {
+            end--;
+        }
+        return word.substring(start, end);
+    }
+
+    private static boolean isWordChar(char c) {
+        return c == '_' || Character.isLetterOrDigit(c) && !isHan(c);
+    }
+
+    private static boolean isHan(char c) {
+        return Character.UnicodeScript.of(c) == Character.UnicodeScript.HAN;
+    }
+}
@@ -0,0 +1,220 @@
+package com.example.specgenerator.service;
+
+import com.example.specgenerator.model.GeneratedSpec;
+import com.example.specgenerator.model.Project;
+import com.example.specgenerator.model.SpecSection;
+import com.example.specgenerator.repository.GeneratedSpecRepository;
+import com.example.specgenerator.repository.SpecExportRow;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Streaming export and import of a project's specs.
+ * <p>
+ * Exports read a forward-only stream of scalar rows and write each spec as soon as its
+ * rows have been read, so memory use does not depend on the size of the project.
+ * Imports read NDJSON line by line and persist fixed-size chunks, each in its own
+ * transaction, clearing the persistence context between chunks.
+ */
+@Service
+public class SpecTransferService {
+
+    // Section name -> file name inside a zip export
+    private static final Map<String, String> ZIP_FILES = new LinkedHashMap<>();
+
+    static {
+        ZIP_FILES.put(SpecSection.API_SPEC, "openapi.yaml");
+        ZIP_FILES.put(SpecSection.DB_SCHEMA, "schema.sql");
+        ZIP_FILES.put(SpecSection.SEQUENCE_DIAGRAM, "sequence.mmd");
+        ZIP_FILES.put(SpecSection.MOCK_DATA, "mock.json");
+    }
+
+    @Autowired
+    GeneratedSpecRepository specRepository;
+
+    @Autowired
+    SpecSectionService specSectionService;
+
+    @Autowired
+    SpecSectionMigrator migrator;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @PersistenceContext
+    EntityManager entityManager;
+
+    @Value("${app.spec-transfer.import-chunk-size:500}")
+    private int importChunkSize;
+
+    private TransactionTemplate readTemplate;
+
+    private TransactionTemplate writeTemplate;
+
+    @PostConstruct
+    public void init() {
+        readTemplate = new TransactionTemplate(transactionManager);
+        readTemplate.setReadOnly(true);
+        writeTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    // One JSON object per line, with the same keys as the spec API
+    public void exportNdjson(Long projectId, OutputStream out) throws IOException {
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(out);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        forEachSpec(projectId, spec -> {
+            Map<String, Object> line = new LinkedHashMap<>();
+            line.put("id", spec.getId());
+            line.put("requirementDescription", spec.getRequirementDescription());
+            line.put("createdAt", spec.getCreatedAt());
+            for (String name : SpecSection.NAMES) {
+                line.put(name, spec.getSection(name));
+            }
+            try {
+                objectMapper.writeValue(generator, line);
+                generator.writeRaw('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        generator.flush();
+    }
+
+    // One directory per spec holding its artifacts and requirement. The zip central
+    // directory is written last, so entry headers (not contents) are kept until the end.
+    public void exportZip(Long projectId, OutputStream out) throws IOException {
+        ZipOutputStream zip = new ZipOutputStream(out, StandardCharsets.UTF_8);
+        forEachSpec(projectId, spec -> {
+            String directory = "spec-" + spec.getId() + "/";
+            try {
+                writeZipEntry(zip, directory + "requirement.txt", spec.getRequirementDescription());
+                for (Map.Entry<String, String> file : ZIP_FILES.entrySet()) {
+                    writeZipEntry(zip, directory + file.getValue(), spec.getSection(file.getKey()));
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        zip.finish();
+    }
+
+    /**
+     * Imports NDJSON as produced by {@link #exportNdjson}. Ids are ignored and new ones
+     * assigned. Chunks are committed as they fill, so on a malformed line the specs of
+     * earlier chunks stay imported and the error names the line to resume after.
+     */
+    public int importNdjson(Long projectId, InputStream in) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        List<GeneratedSpec> chunk = new ArrayList<>(importChunkSize);
+        int imported = 0;
+        int lineNumber = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.trim().isEmpty()) {
+                continue;
+            }
+            chunk.add(parseLine(line, lineNumber, imported));
+            if (chunk.size() == importChunkSize) {
+                imported += persist(projectId, chunk);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            imported += persist(projectId, chunk);
+        }
+        return imported;
+    }
+
+    private void forEachSpec(Long projectId, Consumer<GeneratedSpec> consumer) throws IOException {
+        if (migrator.isPending()) {
+            specRepository.findIdsByProjectId(projectId).forEach(migrator::migrate);
+        }
+        try {
+            readTemplate.executeWithoutResult(status -> {
+                try (Stream<SpecExportRow> rows = specRepository.streamExportRows(projectId)) {
+                    SpecRows.forEachSpec(rows.iterator(), (ignored, spec) -> consumer.accept(spec));
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause(); // typically the client went away
+        }
+    }
+
+    private void writeZipEntry(ZipOutputStream zip, String name, String content) throws IOException {
+        zip.putNextEntry(new ZipEntry(name));
+        if (content != null) {
+            zip.write(content.getBytes(StandardCharsets.UTF_8));
+        }
+        zip.closeEntry();
+    }
+
+    private GeneratedSpec parseLine(String line, int lineNumber, int imported) {
+        try {
+            Map<?, ?> values = objectMapper.readValue(line, Map.class);
+            GeneratedSpec spec = new GeneratedSpec();
+            spec.setRequirementDescription(stringValue(values, "requirementDescription"));
+            String createdAt = stringValue(values, "createdAt");
+            spec.setCreatedAt(createdAt == null ? null : LocalDateTime.parse(createdAt));
+            for (String name : SpecSection.NAMES) {
+                spec.setSection(name, stringValue(values, name));
+            }
+            return spec;
+        } catch (IOException | RuntimeException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "錯誤：第 " + lineNumber + " 行格式錯誤（已匯入 " + imported + " 筆）");
+        }
+    }
+
+    private String stringValue(Map<?, ?> values, String key) {
+        Object value = values.get(key);
+        if (value != null && !(value instanceof String)) {
+            throw new IllegalArgumentException(key + " must be a string");
+        }
+        return (String) value;
+    }
+
+    private int persist(Long projectId, List<GeneratedSpec> specs) {
+        writeTemplate.executeWithoutResult(status -> {
+            Project project = entityManager.getReference(Project.class, projectId);
+            for (GeneratedSpec spec : specs) {
+                spec.setProject(project);
+                specSectionService.save(spec);
+            }
+            // Inserts go out in JDBC batches here; clearing keeps the context from growing across chunks
+            entityManager.flush();
+            entityManager.clear();
+        });
+        return specs.size();
+    }
+}
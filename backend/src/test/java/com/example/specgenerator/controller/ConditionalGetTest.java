@@ -0,0 +1,204 @@
+package com.example.specgenerator.controller;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.web.embedded.tomcat.TomcatServletWebServerFactory;
+import org.springframework.boot.web.server.Compression;
+import org.springframework.boot.web.server.WebServer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.context.support.AnnotationConfigWebApplicationContext;
+import org.springframework.web.servlet.DispatcherServlet;
+import org.springframework.web.servlet.config.annotation.EnableWebMvc;
+
+import javax.servlet.Filter;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ConditionalGetTest {
+
+    private static final int REPEATS = 20;
+
+    private static final AtomicInteger bodiesBuilt = new AtomicInteger();
+
+    private static final AtomicLong serverCpuNanos = new AtomicLong();
+
+    private static WebServer server;
+
+    @BeforeAll
+    static void startServer() {
+        // Same connector settings as application.properties
+        Compression compression = new Compression();
+        compression.setEnabled(true);
+        compression.setMimeTypes(new String[] { "application/json" });
+        compression.setMinResponseSize(DataSize.ofBytes(2048));
+        TomcatServletWebServerFactory factory = new TomcatServletWebServerFactory(0);
+        factory.setCompression(compression);
+
+        AnnotationConfigWebApplicationContext mvc = new AnnotationConfigWebApplicationContext();
+        mvc.register(SpecsConfig.class);
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        Filter cpuMeter = (request, response, chain) -> {
+            long start = threads.getCurrentThreadCpuTime();
+            chain.doFilter(request, response);
+            response.flushBuffer();
+            serverCpuNanos.addAndGet(threads.getCurrentThreadCpuTime() - start);
+        };
+        server = factory.getWebServer(context -> {
+            context.addFilter("cpu", cpuMeter).addMappingForUrlPatterns(null, false, "/*");
+            context.addServlet("dispatcher", new DispatcherServlet(mvc)).addMapping("/");
+        });
+        server.start();
+    }
+
+    @AfterAll
+    static void stopServer() {
+        server.stop();
+    }
+
+    @Test
+    void etagsAreWeakAndMatchEitherForm() {
+        String etag = ConditionalGet.etag("spec", 1L, 2);
+        assertTrue(etag.matches("W/\"[0-9a-f]{32}\""), etag);
+        assertEquals(etag, ConditionalGet.etag("spec", 1L, 2));
+        assertFalse(etag.equals(ConditionalGet.etag("spec", 1L, 3)));
+    }
+
+    @Test
+    void repeatFetchesAreCompressedThenAnsweredWithoutABody() throws Exception {
+        Exchange identity = fetch("identity", null);
+        Exchange first = fetch("gzip", null);
+        assertEquals(200, first.status);
+        assertEquals("gzip", first.header("content-encoding"));
+        String etag = first.header("etag");
+        assertTrue(etag.startsWith("W/"), etag);
+        assertEquals(etag, identity.header("etag"));
+        assertTrue(first.bytes * 5 < identity.bytes, first.bytes + " vs " + identity.bytes);
+
+        long fullCpu = 0;
+        long fullBytes = 0;
+        for (int i = 0; i < REPEATS; i++) {
+            serverCpuNanos.set(0);
+            fullBytes += fetch("gzip", null).bytes;
+            fullCpu += serverCpuNanos.get();
+        }
+
+        bodiesBuilt.set(0);
+        long revalidatedCpu = 0;
+        long revalidatedBytes = 0;
+        for (int i = 0; i < REPEATS; i++) {
+            serverCpuNanos.set(0);
+            Exchange repeat = fetch("gzip", etag);
+            assertEquals(304, repeat.status);
+            assertEquals(etag, repeat.header("etag"));
+            revalidatedBytes += repeat.bytes;
+            revalidatedCpu += serverCpuNanos.get();
+        }
+        // Also matches the strong form some proxies send back
+        assertEquals(304, fetch("gzip", etag.substring(2)).status);
+
+        assertEquals(0, bodiesBuilt.get());
+        System.out.printf("%d repeat fetches: %d bytes / %.2f ms CPU full, %d bytes / %.2f ms CPU revalidated "
+                + "(identity body %d bytes)%n", REPEATS, fullBytes, fullCpu / 1e6, revalidatedBytes,
+                revalidatedCpu / 1e6, identity.bytes);
+        assertTrue(revalidatedBytes * 5 < fullBytes, revalidatedBytes + " vs " + fullBytes);
+        assertTrue(revalidatedCpu < fullCpu, revalidatedCpu + " vs " + fullCpu);
+    }
+
+    // Raw HTTP so the count is what actually crossed the socket, headers included
+    private static Exchange fetch(String encoding, String ifNoneMatch) throws Exception {
+        try (Socket socket = new Socket("localhost", server.getPort())) {
+            StringBuilder request = new StringBuilder("GET /specs HTTP/1.1\r\nHost: localhost\r\n")
+                    .append("Accept-Encoding: ").append(encoding).append("\r\nConnection: close\r\n");
+            if (ifNoneMatch != null) {
+                request.append("If-None-Match: ").append(ifNoneMatch).append("\r\n");
+            }
+            OutputStream out = socket.getOutputStream();
+            out.write(request.append("\r\n").toString().getBytes(StandardCharsets.US_ASCII));
+            out.flush();
+
+            ByteArrayOutputStream received = new ByteArrayOutputStream();
+            InputStream in = socket.getInputStream();
+            byte[] buffer = new byte[8192];
+            for (int n; (n = in.read(buffer)) != -1;) {
+                received.write(buffer, 0, n);
+            }
+            return new Exchange(received.toByteArray());
+        }
+    }
+
+    private static final class Exchange {
+        final int bytes;
+        final int status;
+        final Map<String, String> headers = new LinkedHashMap<>();
+
+        Exchange(byte[] raw) {
+            bytes = raw.length;
+            String text = new String(raw, StandardCharsets.ISO_8859_1);
+            String[] lines = text.substring(0, text.indexOf("\r\n\r\n")).split("\r\n");
+            status = Integer.parseInt(lines[0].split(" ")[1]);
+            for (int i = 1; i < lines.length; i++) {
+                int colon = lines[i].indexOf(':');
+                headers.put(lines[i].substring(0, colon).toLowerCase(), lines[i].substring(colon + 1).trim());
+            }
+        }
+
+        String header(String name) {
+            return headers.get(name);
+        }
+    }
+
+    @RestController
+    static class SpecsController {
+
+        @GetMapping("/specs")
+        ResponseEntity<List<Map<String, Object>>> specs(WebRequest request) {
+            String etag = ConditionalGet.etag("project-specs", 1L, "Todo", 200);
+            if (ConditionalGet.isNotModified(request, etag)) {
+                return ConditionalGet.notModified(etag);
+            }
+            bodiesBuilt.incrementAndGet();
+            List<Map<String, Object>> specs = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                Map<String, Object> spec = new LinkedHashMap<>();
+                spec.put("id", i);
+                spec.put("apiSpec", "openapi: 3.0.0\ninfo:\n  title: Todo " + i + "\npaths:\n  /todos/{id}:\n"
+                        + "    get:\n      responses:\n        '200':\n          description: The todo");
+                spec.put("dbSchema", "CREATE TABLE todo (id BIGINT PRIMARY KEY, title VARCHAR(255));");
+                specs.add(spec);
+            }
+            return ConditionalGet.ok(etag, specs);
+        }
+    }
+
+    @Configuration
+    @EnableWebMvc
+    static class SpecsConfig {
+
+        @Bean
+        SpecsController specsController() {
+            return new SpecsController();
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.example.specgenerator.security.jwt;
+
+import com.example.specgenerator.security.services.MemberPrincipal;
+import com.example.specgenerator.security.services.MemberPrincipalCache;
+import com.example.specgenerator.security.services.UserDetailsServiceImpl;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.config.MeterFilter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-request cost of the JWT filter. {@code before} is the filter as it was: the token
+ * checked and then parsed again, each time with a freshly built key and parser. The
+ * principal comes from the member cache in every case, so only token handling differs.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AuthTokenFilterBenchmark {
+
+    private static final String SECRET = "benchmark-secret-benchmark-secret-benchmark-secret";
+
+    private UserDetailsServiceImpl userDetailsService;
+
+    private AuthTokenFilter filter;
+
+    private Map<?, ?> verifiedTokens;
+
+    private MockHttpServletRequest request;
+
+    @Setup
+    public void setUp() {
+        JwtUtils jwtUtils = new JwtUtils();
+        ReflectionTestUtils.setField(jwtUtils, "jwtSecret", SECRET);
+        ReflectionTestUtils.setField(jwtUtils, "jwtExpirationMs", 3_600_000);
+        ReflectionTestUtils.setField(jwtUtils, "verifiedCacheSize", 10_000);
+        jwtUtils.init();
+        verifiedTokens = (Map<?, ?>) ReflectionTestUtils.getField(jwtUtils, "verified");
+
+        MemberPrincipal principal = new MemberPrincipal(1L, "t@x.io", null, 1,
+                Collections.singletonList(new SimpleGrantedAuthority("ROLE_USER")));
+        MemberPrincipalCache principalCache = new MemberPrincipalCache();
+        ReflectionTestUtils.setField(principalCache, "ttlMs", 3_600_000L);
+        ReflectionTestUtils.setField(principalCache, "maxEntries", 10_000);
+        principalCache.put(principal);
+        userDetailsService = new UserDetailsServiceImpl();
+        ReflectionTestUtils.setField(userDetailsService, "principalCache", principalCache);
+
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        registry.config().meterFilter(MeterFilter.deny());
+        filter = new AuthTokenFilter();
+        ReflectionTestUtils.setField(filter, "jwtUtils", jwtUtils);
+        ReflectionTestUtils.setField(filter, "userDetailsService", userDetailsService);
+        ReflectionTestUtils.setField(filter, "meterRegistry", registry);
+        filter.initTimers();
+
+        String token = jwtUtils.generateJwtToken(
+                new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+        request = new MockHttpServletRequest("GET", "/api/projects");
+        request.addHeader("Authorization", "Bearer " + token);
+    }
+
+    @Benchmark
+    public Object before() throws Exception {
+        String jwt = request.getHeader("Authorization").substring(7);
+        Jwts.parserBuilder().setSigningKey(Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8))).build()
+                .parseClaimsJws(jwt);
+        String username = Jwts.parserBuilder()
+                .setSigningKey(Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8))).build()
+                .parseClaimsJws(jwt).getBody().getSubject();
+        UserDetails userDetails = userDetailsService.loadPrincipal(username);
+        UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
+                userDetails, null, userDetails.getAuthorities());
+        authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+        SecurityContextHolder.getContext().setAuthentication(authentication);
+
+        MockFilterChain chain = new MockFilterChain();
+        chain.doFilter(request, new MockHttpServletResponse());
+        SecurityContextHolder.clearContext();
+        return chain.getRequest();
+    }
+
+    // A token seen for the first time: one parse and HMAC check
+    @Benchmark
+    public Object afterFirstUse() throws Exception {
+        verifiedTokens.clear();
+        return filter();
+    }
+
+    // Every later request with the same bearer token
+    @Benchmark
+    public Object afterRepeatUse() throws Exception {
+        return filter();
+    }
+
+    private Object filter() throws Exception {
+        MockFilterChain chain = new MockFilterChain();
+        filter.doFilter(request, new MockHttpServletResponse(), chain);
+        SecurityContextHolder.clearContext();
+        return chain.getRequest();
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder().include(AuthTokenFilterBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,139 @@
+package com.example.specgenerator.security.jwt;
+
+import com.example.specgenerator.security.services.MemberPrincipal;
+import com.example.specgenerator.security.services.MemberPrincipalCache;
+import com.example.specgenerator.security.services.UserDetailsServiceImpl;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.config.MeterFilter;
+import io.micrometer.core.instrument.distribution.DistributionStatisticConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.prometheus.PrometheusConfig;
+import io.micrometer.prometheus.PrometheusMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the meters on the request hot path: the JWT filter as deployed (verified-token and
+ * principal caches warm) and the per-call Gemini timer lookup, with the Prometheus registry
+ * configured as in application.properties against a registry that denies every meter.
+ * Run with {@code main}; the difference between the two registries is the instrumentation cost.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MetricsOverheadBenchmark {
+
+    @Param({ "prometheus", "off" })
+    public String registry;
+
+    private MeterRegistry meterRegistry;
+
+    private AuthTokenFilter filter;
+
+    private MockHttpServletRequest request;
+
+    @Setup
+    public void setUp() throws Exception {
+        meterRegistry = "off".equals(registry) ? offRegistry() : prometheusRegistry();
+
+        JwtUtils jwtUtils = new JwtUtils();
+        ReflectionTestUtils.setField(jwtUtils, "jwtSecret", "benchmark-secret-benchmark-secret-benchmark-secret");
+        ReflectionTestUtils.setField(jwtUtils, "jwtExpirationMs", 3_600_000);
+        ReflectionTestUtils.setField(jwtUtils, "verifiedCacheSize", 10_000);
+        jwtUtils.init();
+
+        MemberPrincipal principal = new MemberPrincipal(1L, "t@x.io", null, 1,
+                Collections.singletonList(new SimpleGrantedAuthority("ROLE_USER")));
+        MemberPrincipalCache principalCache = new MemberPrincipalCache();
+        ReflectionTestUtils.setField(principalCache, "ttlMs", 3_600_000L);
+        ReflectionTestUtils.setField(principalCache, "maxEntries", 10_000);
+        principalCache.put(principal);
+        UserDetailsServiceImpl userDetailsService = new UserDetailsServiceImpl();
+        ReflectionTestUtils.setField(userDetailsService, "principalCache", principalCache);
+
+        filter = new AuthTokenFilter();
+        ReflectionTestUtils.setField(filter, "jwtUtils", jwtUtils);
+        ReflectionTestUtils.setField(filter, "userDetailsService", userDetailsService);
+        ReflectionTestUtils.setField(filter, "meterRegistry", meterRegistry);
+        filter.initTimers();
+
+        String token = jwtUtils.generateJwtToken(
+                new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+        request = new MockHttpServletRequest("GET", "/api/projects");
+        request.addHeader("Authorization", "Bearer " + token);
+    }
+
+    @Benchmark
+    public Object jwtFilter() throws Exception {
+        MockFilterChain chain = new MockFilterChain();
+        filter.doFilter(request, new MockHttpServletResponse(), chain);
+        SecurityContextHolder.clearContext();
+        return chain.getRequest();
+    }
+
+    // Same shape as AIService.callGeminiOrThrow: sample on entry, tagged lookup and stop on exit
+    @Benchmark
+    public Object aiCallTimer() {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        return sample.stop(Timer.builder("ai.gemini.calls")
+                .tag("operation", "generate")
+                .tag("stream", "false")
+                .tag("outcome", "cache_hit")
+                .register(meterRegistry));
+    }
+
+    private static MeterRegistry prometheusRegistry() {
+        PrometheusMeterRegistry registry = new PrometheusMeterRegistry(PrometheusConfig.DEFAULT);
+        registry.config().meterFilter(new MeterFilter() {
+            @Override
+            public DistributionStatisticConfig configure(Meter.Id id, DistributionStatisticConfig config) {
+                if (id.getName().equals("auth.jwt.filter") || id.getName().equals("ai.gemini.calls")) {
+                    return DistributionStatisticConfig.builder()
+                            .percentilesHistogram(true)
+                            .maximumExpectedValue((double) Duration.ofSeconds(1).toNanos())
+                            .build()
+                            .merge(config);
+                }
+                return config;
+            }
+        });
+        return registry;
+    }
+
+    private static MeterRegistry offRegistry() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        registry.config().meterFilter(MeterFilter.deny());
+        return registry;
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder().include(MetricsOverheadBenchmark.class.getSimpleName()).build()).run();
+    }
+}
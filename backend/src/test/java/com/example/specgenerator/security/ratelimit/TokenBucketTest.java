@@ -0,0 +1,133 @@
+package com.example.specgenerator.security.ratelimit;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TokenBucketTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    void concurrentConsumersNeverTakeMoreThanTheCapacity() throws Exception {
+        int threads = 8;
+        int attemptsPerThread = 1_000;
+        // No refill within the test: the clock is frozen, so exactly capacity tokens exist
+        TokenBucket bucket = new TokenBucket(500, 1, 0L);
+        CountDownLatch start = new CountDownLatch(1);
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Integer>> granted = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                granted.add(pool.submit(() -> {
+                    start.await();
+                    int taken = 0;
+                    for (int i = 0; i < attemptsPerThread; i++) {
+                        if (bucket.tryConsume(0L) == 0) {
+                            taken++;
+                        }
+                    }
+                    return taken;
+                }));
+            }
+            start.countDown();
+
+            int total = 0;
+            for (Future<Integer> future : granted) {
+                total += future.get(10, TimeUnit.SECONDS);
+            }
+            assertEquals(500, total);
+        } finally {
+            pool.shutdownNow();
+        }
+        assertEquals(0, bucket.availableTokens(0L), 1e-6);
+    }
+
+    @Test
+    void concurrentBatchesAreAllOrNothing() throws Exception {
+        int threads = 8;
+        TokenBucket bucket = new TokenBucket(100, 1, 0L);
+        CountDownLatch start = new CountDownLatch(1);
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Integer>> granted = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                granted.add(pool.submit(() -> {
+                    start.await();
+                    int taken = 0;
+                    for (int i = 0; i < 50; i++) {
+                        if (bucket.tryConsume(0L, 7) == 0) {
+                            taken += 7;
+                        }
+                    }
+                    return taken;
+                }));
+            }
+            start.countDown();
+
+            int total = 0;
+            for (Future<Integer> future : granted) {
+                total += future.get(10, TimeUnit.SECONDS);
+            }
+            // 14 batches of 7 fit into 100; the remaining 2 tokens stay in the bucket
+            assertEquals(98, total);
+        } finally {
+            pool.shutdownNow();
+        }
+        assertEquals(2, bucket.availableTokens(0L), 1e-6);
+    }
+
+    @Test
+    void refillsLazilyUpToTheCapacity() {
+        TokenBucket bucket = new TokenBucket(2, 1, 0L);
+        assertEquals(0, bucket.tryConsume(0L));
+        assertEquals(0, bucket.tryConsume(0L));
+
+        long wait = bucket.tryConsume(0L);
+        assertTrue(wait > 0 && wait <= SECOND, "wait was " + wait);
+        assertEquals(0, bucket.tryConsume(wait));
+
+        // A long idle period never accumulates more than the capacity
+        assertEquals(2, bucket.availableTokens(100 * SECOND), 1e-6);
+    }
+
+    @Test
+    void batchLargerThanTheCapacityIsNeverGranted() {
+        TokenBucket bucket = new TokenBucket(10, 1, 0L);
+        assertEquals(-1, bucket.tryConsume(0L, 11));
+        assertEquals(10, bucket.availableTokens(0L), 1e-6);
+
+        assertEquals(0, bucket.tryConsume(0L, 8));
+        long wait = bucket.tryConsume(0L, 5);
+        assertTrue(wait >= 3 * SECOND - 1 && wait <= 3 * SECOND + 1, "wait was " + wait);
+        assertEquals(2, bucket.availableTokens(0L), 1e-6);
+    }
+
+    @Test
+    void staleTimestampsDoNotRewindTheBucket() {
+        TokenBucket bucket = new TokenBucket(1, 1, 10 * SECOND);
+        assertEquals(0, bucket.tryConsume(10 * SECOND));
+        // A caller that read the clock earlier must not see refill from the past
+        assertTrue(bucket.tryConsume(9 * SECOND) > 0);
+    }
+
+    @Test
+    void idleOnlyOnceFullAndUnused() {
+        TokenBucket bucket = new TokenBucket(1, 1, 0L);
+        assertEquals(0, bucket.tryConsume(0L));
+        assertFalse(bucket.isIdle(SECOND / 2, SECOND / 4));
+        assertTrue(bucket.isIdle(2 * SECOND, SECOND));
+    }
+}
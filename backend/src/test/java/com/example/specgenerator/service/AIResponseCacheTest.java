@@ -0,0 +1,31 @@
+package com.example.specgenerator.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+class AIResponseCacheTest {
+
+    @Test
+    void requirementPromptsIgnoreWhitespaceOnlyDifferences() {
+        assertEquals(AIResponseCache.keyFor("m", "3", "Requirement: todo app\n- users\n- tags\n", true),
+                AIResponseCache.keyFor("m", "3", "Requirement:  todo app - users\t- tags", true));
+    }
+
+    @Test
+    void documentPromptsAreKeyedExactly() {
+        assertNotEquals(AIResponseCache.keyFor("m", "3", "Current Content:\na:\n  b: 1", false),
+                AIResponseCache.keyFor("m", "3", "Current Content:\na:\n    b: 1", false));
+    }
+
+    @Test
+    void modelAndTemplateVersionArePartOfTheKey() {
+        String key = AIResponseCache.keyFor("m", "3", "p", true);
+        assertEquals(64, key.length());
+        assertNotEquals(key, AIResponseCache.keyFor("n", "3", "p", true));
+        assertNotEquals(key, AIResponseCache.keyFor("m", "2", "p", true));
+        // The separator keeps (model, version) pairs from running into each other
+        assertNotEquals(AIResponseCache.keyFor("m3", "", "p", true), AIResponseCache.keyFor("m", "3", "p", true));
+    }
+}
@@ -0,0 +1,215 @@
+package com.example.specgenerator.service;
+
+import com.example.specgenerator.model.EmailOutboxMessage;
+import com.example.specgenerator.repository.EmailOutboxRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class EmailOutboxDispatcherTest {
+
+    private static final long BASE_MS = 1_000;
+
+    @Mock
+    EmailOutboxRepository outboxRepository;
+
+    @InjectMocks
+    EmailOutboxDispatcher dispatcher;
+
+    private SmtpStandIn smtp;
+
+    private String owner;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        smtp = new SmtpStandIn();
+        JavaMailSenderImpl mailSender = new JavaMailSenderImpl();
+        mailSender.setHost("localhost");
+        mailSender.setPort(smtp.port());
+        mailSender.getJavaMailProperties().put("mail.smtp.connectiontimeout", "5000");
+        mailSender.getJavaMailProperties().put("mail.smtp.timeout", "5000");
+        dispatcher.mailSender = mailSender;
+
+        ReflectionTestUtils.setField(dispatcher, "from", "noreply@specgenerator.com");
+        ReflectionTestUtils.setField(dispatcher, "batchSize", 50);
+        ReflectionTestUtils.setField(dispatcher, "maxAttempts", 6);
+        ReflectionTestUtils.setField(dispatcher, "backoffBaseMs", BASE_MS);
+        ReflectionTestUtils.setField(dispatcher, "backoffMaxMs", 5 * BASE_MS);
+        ReflectionTestUtils.setField(dispatcher, "leaseMs", 60_000L);
+        owner = (String) ReflectionTestUtils.getField(dispatcher, "dispatcherId");
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        smtp.close();
+    }
+
+    @Test
+    void sendsTheBatchOverOneConnectionAndRetriesOnlyTheRejectedMail() {
+        outbox(message(1L, "a@x.io", 0), message(2L, "bounce@x.io", 0), message(3L, "c@x.io", 0));
+
+        LocalDateTime before = LocalDateTime.now();
+        assertEquals(3, dispatcher.dispatchBatch());
+
+        assertEquals(1, smtp.connections.get());
+        assertEquals(Arrays.asList("a@x.io", "c@x.io"), smtp.delivered);
+        verify(outboxRepository).markSent(eq(Arrays.asList(1L, 3L)), eq(owner), any(LocalDateTime.class));
+        assertRetryAfter(2L, before, BASE_MS);
+    }
+
+    @Test
+    void backsOffExponentiallyUpToTheCapAndThenGivesUp() throws IOException {
+        // Nothing listening: every mail of the batch fails
+        smtp.close();
+        outbox(message(1L, "a@x.io", 0), message(2L, "b@x.io", 2), message(3L, "c@x.io", 4),
+                message(4L, "d@x.io", 5));
+
+        LocalDateTime before = LocalDateTime.now();
+        dispatcher.dispatchBatch();
+
+        verify(outboxRepository, never()).markSent(anyCollection(), anyString(), any(LocalDateTime.class));
+        assertRetryAfter(1L, before, BASE_MS);
+        assertRetryAfter(2L, before, 4 * BASE_MS);
+        assertRetryAfter(3L, before, 5 * BASE_MS);
+        verify(outboxRepository).markFailed(eq(4L), eq(owner), eq(EmailOutboxMessage.Status.DEAD), anyString(),
+                any(LocalDateTime.class));
+    }
+
+    private void outbox(EmailOutboxMessage... messages) {
+        List<Long> ids = new ArrayList<>();
+        for (EmailOutboxMessage message : messages) {
+            ids.add(message.getId());
+        }
+        when(outboxRepository.findDueIds(any(LocalDateTime.class), any(Pageable.class))).thenReturn(ids);
+        when(outboxRepository.findByLockedByAndStatusAndIdIn(owner, EmailOutboxMessage.Status.PENDING, ids))
+                .thenReturn(Arrays.asList(messages));
+    }
+
+    // Back to PENDING, due again after the delay plus at most 20% jitter
+    private void assertRetryAfter(Long id, LocalDateTime before, long delayMs) {
+        ArgumentCaptor<LocalDateTime> next = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(outboxRepository).markFailed(eq(id), eq(owner), eq(EmailOutboxMessage.Status.PENDING), anyString(),
+                next.capture());
+        long delay = Duration.between(before, next.getValue()).toMillis();
+        assertTrue(delay >= delayMs && delay <= delayMs * 6 / 5 + 1_000, id + " retried after " + delay + " ms");
+    }
+
+    private static EmailOutboxMessage message(Long id, String recipient, int attempts) {
+        EmailOutboxMessage message = new EmailOutboxMessage();
+        message.setId(id);
+        message.setRecipient(recipient);
+        message.setSubject("Reset " + id);
+        message.setBody("Token " + id);
+        message.setAttempts(attempts);
+        return message;
+    }
+
+    /**
+     * Just enough SMTP for JavaMail: accepts every recipient except those starting with
+     * "bounce", and records the recipient of each mail it takes.
+     */
+    private static final class SmtpStandIn implements AutoCloseable {
+        final AtomicInteger connections = new AtomicInteger();
+        final List<String> delivered = new CopyOnWriteArrayList<>();
+        private final ServerSocket server;
+
+        SmtpStandIn() throws IOException {
+            server = new ServerSocket(0);
+            Thread acceptor = new Thread(() -> {
+                while (!server.isClosed()) {
+                    try (Socket socket = server.accept()) {
+                        connections.incrementAndGet();
+                        converse(socket);
+                    } catch (IOException e) {
+                        // closed
+                    }
+                }
+            }, "smtp-stand-in");
+            acceptor.setDaemon(true);
+            acceptor.start();
+        }
+
+        int port() {
+            return server.getLocalPort();
+        }
+
+        private void converse(Socket socket) throws IOException {
+            BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(),
+                    StandardCharsets.US_ASCII));
+            PrintWriter out = new PrintWriter(socket.getOutputStream(), true);
+            reply(out, "220 localhost ready");
+            String recipient = null;
+            String line;
+            while ((line = in.readLine()) != null) {
+                String command = line.toUpperCase();
+                if (command.startsWith("RCPT TO:")) {
+                    String address = line.substring(line.indexOf('<') + 1, line.indexOf('>'));
+                    if (address.startsWith("bounce")) {
+                        reply(out, "550 5.1.1 No such user");
+                    } else {
+                        recipient = address;
+                        reply(out, "250 OK");
+                    }
+                } else if (command.startsWith("DATA")) {
+                    reply(out, "354 End data with <CR><LF>.<CR><LF>");
+                    while ((line = in.readLine()) != null && !line.equals(".")) {
+                        // body
+                    }
+                    delivered.add(recipient);
+                    reply(out, "250 OK");
+                } else if (command.startsWith("QUIT")) {
+                    reply(out, "221 Bye");
+                    return;
+                } else {
+                    // EHLO, MAIL FROM, RSET, NOOP
+                    recipient = command.startsWith("RSET") ? null : recipient;
+                    reply(out, "250 OK");
+                }
+            }
+        }
+
+        private void reply(PrintWriter out, String line) {
+            out.print(line + "\r\n");
+            out.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            server.close();
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package com.example.specgenerator.service;
+
+import com.example.specgenerator.model.Member;
+import com.example.specgenerator.model.PasswordResetToken;
+import com.example.specgenerator.repository.MemberRepository;
+import com.example.specgenerator.repository.PasswordResetTokenRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class PasswordResetServiceTest {
+
+    @Mock
+    PasswordResetTokenRepository tokenRepository;
+
+    @Mock
+    MemberRepository memberRepository;
+
+    @Mock
+    EmailService emailService;
+
+    @InjectMocks
+    PasswordResetService service;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(service, "tokenTtlMs", 60_000L);
+        ReflectionTestUtils.setField(service, "sweepChunkSize", 2);
+    }
+
+    @Test
+    void issueStoresOnlyTheHashAndReplacesEarlierTokens() throws Exception {
+        String token = service.issue(7L);
+
+        ArgumentCaptor<PasswordResetToken> saved = ArgumentCaptor.forClass(PasswordResetToken.class);
+        InOrder order = inOrder(tokenRepository);
+        order.verify(tokenRepository).deleteByMemberId(7L);
+        order.verify(tokenRepository).save(saved.capture());
+
+        // 256 bits, url-safe base64 without padding
+        assertEquals(43, token.length());
+        assertTrue(token.matches("[A-Za-z0-9_-]+"));
+        assertEquals(sha256Hex(token), saved.getValue().getTokenHash());
+        assertNotEquals(token, saved.getValue().getTokenHash());
+        assertEquals(7L, saved.getValue().getMemberId());
+        assertTrue(saved.getValue().getExpiresAt().isAfter(LocalDateTime.now().plusSeconds(50)));
+
+        assertNotEquals(token, service.issue(7L));
+    }
+
+    @Test
+    void issueAndSendMailsTheTokenThatWasStored() throws Exception {
+        service.issueAndSend(7L, "t@x.io");
+
+        ArgumentCaptor<PasswordResetToken> saved = ArgumentCaptor.forClass(PasswordResetToken.class);
+        ArgumentCaptor<String> body = ArgumentCaptor.forClass(String.class);
+        verify(tokenRepository).save(saved.capture());
+        verify(emailService).enqueue(eq("t@x.io"), anyString(), body.capture());
+        String token = body.getValue().substring(body.getValue().lastIndexOf(' ') + 1);
+        assertEquals(sha256Hex(token), saved.getValue().getTokenHash());
+    }
+
+    @Test
+    void findLooksTokensUpByHash() throws Exception {
+        PasswordResetToken stored = token(1L, 7L, sha256Hex("abc"));
+        when(tokenRepository.findByTokenHash(sha256Hex("abc"))).thenReturn(Optional.of(stored));
+        when(tokenRepository.findByTokenHash(sha256Hex("abd"))).thenReturn(Optional.empty());
+
+        assertEquals(Optional.of(stored), service.find("abc"));
+        assertFalse(service.find("abd").isPresent());
+    }
+
+    @Test
+    void findIgnoresMissingTokens() {
+        assertFalse(service.find(null).isPresent());
+        assertFalse(service.find("").isPresent());
+        verifyNoInteractions(tokenRepository);
+    }
+
+    @Test
+    void redeemSetsThePasswordAndRemovesTheMembersTokens() {
+        Member member = new Member();
+        member.setEmail("t@x.io");
+        when(tokenRepository.deleteByIdIn(Collections.singletonList(1L))).thenReturn(1);
+        when(memberRepository.findById(7L)).thenReturn(Optional.of(member));
+
+        assertEquals(Optional.of("t@x.io"), service.redeem(token(1L, 7L, "h"), "{bcrypt}new"));
+        assertEquals("{bcrypt}new", member.getPassword());
+        verify(tokenRepository).deleteByMemberId(7L);
+    }
+
+    @Test
+    void secondRedeemOfTheSameTokenDoesNothing() {
+        when(tokenRepository.deleteByIdIn(Collections.singletonList(1L))).thenReturn(0);
+
+        assertFalse(service.redeem(token(1L, 7L, "h"), "{bcrypt}new").isPresent());
+        verify(memberRepository, never()).findById(any());
+        verify(tokenRepository, never()).deleteByMemberId(any());
+    }
+
+    @Test
+    void sweepDeletesExpiredTokensChunkByChunk() {
+        when(tokenRepository.findExpiredIds(any(LocalDateTime.class), any(Pageable.class)))
+                .thenReturn(Arrays.asList(1L, 2L), Arrays.asList(3L, 4L), Collections.singletonList(5L),
+                        Collections.emptyList());
+        when(tokenRepository.deleteByIdIn(anyCollection()))
+                .thenAnswer(call -> call.<Collection<?>>getArgument(0).size());
+
+        service.sweepExpired();
+
+        verify(tokenRepository, times(4)).findExpiredIds(any(LocalDateTime.class), any(Pageable.class));
+        verify(tokenRepository).deleteByIdIn(Arrays.asList(1L, 2L));
+        verify(tokenRepository).deleteByIdIn(Arrays.asList(3L, 4L));
+        verify(tokenRepository).deleteByIdIn(Collections.singletonList(5L));
+    }
+
+    private static PasswordResetToken token(Long id, Long memberId, String hash) {
+        PasswordResetToken token = new PasswordResetToken();
+        token.setId(id);
+        token.setMemberId(memberId);
+        token.setTokenHash(hash);
+        token.setExpiresAt(LocalDateTime.now().plusHours(1));
+        return token;
+    }
+
+    private static String sha256Hex(String value) throws Exception {
+        byte[] digest = MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+        StringBuilder hex = new StringBuilder();
+        for (byte b : digest) {
+            hex.append(String.format("%02x", b));
+        }
+        return hex.toString();
+    }
+}
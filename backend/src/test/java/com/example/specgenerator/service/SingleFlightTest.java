@@ -0,0 +1,142 @@
+package com.example.specgenerator.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SingleFlightTest {
+
+    private static final int CALLERS = 16;
+
+    @Test
+    void concurrentCallsForOneKeyRunOnce() throws Exception {
+        SingleFlight<String, Integer> flight = new SingleFlight<>();
+        AtomicInteger runs = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+
+        ExecutorService pool = Executors.newFixedThreadPool(CALLERS);
+        try {
+            List<Future<Integer>> results = new ArrayList<>();
+            for (int i = 0; i < CALLERS; i++) {
+                results.add(pool.submit(() -> flight.execute("k", () -> {
+                    runs.incrementAndGet();
+                    await(release);
+                    return 42;
+                })));
+            }
+            // Every caller but the leader must be parked on the shared call before it finishes
+            waitUntil(() -> flight.getCoalesced() == CALLERS - 1);
+            release.countDown();
+
+            for (Future<Integer> result : results) {
+                assertEquals(42, result.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertEquals(1, runs.get());
+        assertEquals(1, flight.getExecutions());
+        assertEquals(0, flight.inFlight());
+    }
+
+    @Test
+    void waitersShareTheLeadersException() throws Exception {
+        SingleFlight<String, Integer> flight = new SingleFlight<>();
+        IllegalStateException failure = new IllegalStateException("boom");
+        CountDownLatch release = new CountDownLatch(1);
+
+        ExecutorService pool = Executors.newFixedThreadPool(CALLERS);
+        try {
+            List<Future<Throwable>> results = new ArrayList<>();
+            for (int i = 0; i < CALLERS; i++) {
+                results.add(pool.submit(() -> {
+                    try {
+                        flight.execute("k", () -> {
+                            await(release);
+                            throw failure;
+                        });
+                        return null;
+                    } catch (RuntimeException e) {
+                        return e;
+                    }
+                }));
+            }
+            waitUntil(() -> flight.getCoalesced() == CALLERS - 1);
+            release.countDown();
+
+            for (Future<Throwable> result : results) {
+                assertSame(failure, result.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        assertEquals(0, flight.inFlight());
+    }
+
+    @Test
+    void nextCallAfterCompletionRunsAgain() {
+        SingleFlight<String, Integer> flight = new SingleFlight<>();
+        AtomicInteger runs = new AtomicInteger();
+
+        assertEquals(1, flight.execute("k", runs::incrementAndGet));
+        assertEquals(2, flight.execute("k", runs::incrementAndGet));
+        assertThrows(IllegalStateException.class, () -> flight.execute("k", () -> {
+            throw new IllegalStateException();
+        }));
+        assertEquals(3, flight.execute("k", runs::incrementAndGet));
+        assertEquals(0, flight.inFlight());
+    }
+
+    @Test
+    void differentKeysDoNotWaitForEachOther() throws Exception {
+        SingleFlight<String, String> flight = new SingleFlight<>();
+        CountDownLatch release = new CountDownLatch(1);
+
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        try {
+            Future<String> blocked = pool.submit(() -> flight.execute("a", () -> {
+                await(release);
+                return "a";
+            }));
+            waitUntil(() -> flight.inFlight() == 1);
+
+            assertEquals("b", flight.execute("b", () -> "b"));
+            release.countDown();
+            assertEquals("a", blocked.get(5, TimeUnit.SECONDS));
+        } finally {
+            pool.shutdownNow();
+        }
+        assertEquals(0, flight.getCoalesced());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void waitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "condition not reached in time");
+            Thread.sleep(1);
+        }
+    }
+}
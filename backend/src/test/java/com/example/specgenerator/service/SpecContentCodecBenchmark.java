@@ -0,0 +1,99 @@
+package com.example.specgenerator.service;
+
+import com.example.specgenerator.model.CompressionDictionary;
+import com.example.specgenerator.repository.CompressionDictionaryRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Encode and decode throughput of the section codec over a corpus of 100 generated
+ * specs (400 sections, about 250 KB), with and without a dictionary trained on other
+ * specs. Scores are corpus passes per second; the compression ratio is printed at setup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SpecContentCodecBenchmark {
+
+    @Param({ "trained", "none" })
+    public String dictionary;
+
+    @Param({ "6" })
+    public int level;
+
+    private SpecContentCodec codec;
+
+    private List<String> corpus;
+
+    private byte[][] encoded;
+
+    @Setup
+    public void setUp() {
+        List<String> training = SpecCorpus.sections(500, 1L);
+        corpus = SpecCorpus.sections(100, 2L);
+
+        CompressionDictionaryRepository repository = mock(CompressionDictionaryRepository.class);
+        CompressionDictionary trained = new CompressionDictionary();
+        trained.setId(1);
+        trained.setData(SpecContentCodec.buildDictionary(training));
+        when(repository.findById(1)).thenReturn(Optional.of(trained));
+
+        codec = new SpecContentCodec();
+        codec.dictionaryRepository = repository;
+        ReflectionTestUtils.setField(codec, "level", level);
+        ReflectionTestUtils.setField(codec, "currentDictionaryId", "trained".equals(dictionary) ? 1 : 0);
+
+        long plain = 0;
+        long compressed = 0;
+        encoded = new byte[corpus.size()][];
+        for (int i = 0; i < corpus.size(); i++) {
+            encoded[i] = codec.encode(corpus.get(i));
+            plain += corpus.get(i).getBytes(StandardCharsets.UTF_8).length;
+            compressed += encoded[i].length;
+        }
+        System.out.printf("%n%s dictionary: %d -> %d bytes, ratio %.2f%n", dictionary, plain, compressed,
+                (double) plain / compressed);
+    }
+
+    @Benchmark
+    public void encode(Blackhole blackhole) {
+        for (String text : corpus) {
+            blackhole.consume(codec.encode(text));
+        }
+    }
+
+    @Benchmark
+    public void decode(Blackhole blackhole) {
+        for (byte[] value : encoded) {
+            blackhole.consume(codec.decode(value));
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder().include(SpecContentCodecBenchmark.class.getSimpleName()).build()).run();
+    }
+}
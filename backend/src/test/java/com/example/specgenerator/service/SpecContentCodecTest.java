@@ -0,0 +1,147 @@
+package com.example.specgenerator.service;
+
+import com.example.specgenerator.model.CompressionDictionary;
+import com.example.specgenerator.repository.CompressionDictionaryRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class SpecContentCodecTest {
+
+    private static final List<String> TRAINING = SpecCorpus.sections(200, 1L);
+
+    private static final List<String> UNSEEN = SpecCorpus.sections(20, 2L);
+
+    @Mock
+    CompressionDictionaryRepository dictionaryRepository;
+
+    @InjectMocks
+    SpecContentCodec codec;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(codec, "level", 6);
+    }
+
+    @Test
+    void roundTripsWithoutADictionary() {
+        for (String text : Arrays.asList("", "x", "用戶登入流程 ✓", UNSEEN.get(0), UNSEEN.get(3))) {
+            byte[] encoded = codec.encode(text);
+            assertEquals(0x01, encoded[0]);
+            assertEquals(0, ByteBuffer.wrap(encoded, 1, 4).getInt());
+            assertEquals(text, codec.decode(encoded));
+        }
+    }
+
+    @Test
+    void roundTripsWithADictionaryLoadedOnFirstUse() {
+        when(dictionaryRepository.findById(7)).thenReturn(Optional.of(dictionary(7)));
+        ReflectionTestUtils.setField(codec, "currentDictionaryId", 7);
+
+        int plain = 0;
+        int compressed = 0;
+        for (String text : UNSEEN) {
+            byte[] encoded = codec.encode(text);
+            assertEquals(7, ByteBuffer.wrap(encoded, 1, 4).getInt());
+            assertEquals(text, codec.decode(encoded));
+            plain += text.getBytes(StandardCharsets.UTF_8).length;
+            compressed += encoded.length;
+        }
+        // Fetched once, then kept
+        verify(dictionaryRepository, times(1)).findById(7);
+        assertTrue(compressed * 4 < plain, compressed + " of " + plain);
+    }
+
+    @Test
+    void dictionaryBeatsPlainDeflateOnShortSections() {
+        String section = UNSEEN.get(2);
+        int plain = codec.encode(section).length;
+
+        when(dictionaryRepository.findById(7)).thenReturn(Optional.of(dictionary(7)));
+        ReflectionTestUtils.setField(codec, "currentDictionaryId", 7);
+        int withDictionary = codec.encode(section).length;
+
+        assertTrue(withDictionary < plain, withDictionary + " vs " + plain);
+    }
+
+    @Test
+    void valuesWrittenWithAnOlderDictionaryStayReadable() {
+        when(dictionaryRepository.findById(7)).thenReturn(Optional.of(dictionary(7)));
+        ReflectionTestUtils.setField(codec, "currentDictionaryId", 7);
+        byte[] old = codec.encode(UNSEEN.get(0));
+
+        ReflectionTestUtils.setField(codec, "currentDictionaryId", 0);
+        assertEquals(UNSEEN.get(0), codec.decode(old));
+    }
+
+    @Test
+    void failsLoudlyOnAMissingDictionary() {
+        when(dictionaryRepository.findById(7)).thenReturn(Optional.of(dictionary(7)));
+        ReflectionTestUtils.setField(codec, "currentDictionaryId", 7);
+        byte[] encoded = codec.encode(UNSEEN.get(0));
+        // Same payload, but naming a dictionary that was never stored
+        ByteBuffer.wrap(encoded, 1, 4).putInt(42);
+        when(dictionaryRepository.findById(42)).thenReturn(Optional.empty());
+
+        IllegalStateException e = assertThrows(IllegalStateException.class, () -> codec.decode(encoded));
+        assertEquals("Missing compression dictionary 42", e.getMessage());
+    }
+
+    @Test
+    void rejectsUnknownAndDamagedValues() {
+        assertThrows(IllegalStateException.class, () -> codec.decode(new byte[0]));
+        assertThrows(IllegalStateException.class, () -> codec.decode("plain".getBytes(StandardCharsets.UTF_8)));
+
+        byte[] encoded = codec.encode(UNSEEN.get(0));
+        for (int cut = 0; cut < encoded.length; cut++) {
+            byte[] truncated = Arrays.copyOf(encoded, cut);
+            assertThrows(IllegalStateException.class, () -> codec.decode(truncated), "cut at " + cut);
+        }
+    }
+
+    @Test
+    void dictionaryFitsTheDeflateWindowAndIsDeterministic() {
+        byte[] data = SpecContentCodec.buildDictionary(TRAINING);
+        assertTrue(data.length <= 32 * 1024, String.valueOf(data.length));
+
+        assertTrue(new String(data, StandardCharsets.UTF_8).endsWith("\n"));
+        assertArrayEquals(SpecContentCodec.buildDictionary(TRAINING), data);
+    }
+
+    @Test
+    void dictionaryOnlyTakesLinesSharedBySamples() {
+        String text = new String(SpecContentCodec.buildDictionary(
+                Arrays.asList("unique line here\nshared line xx", "shared line xx\nshared line xx")),
+                StandardCharsets.UTF_8);
+        assertTrue(text.endsWith("shared line xx\n"), text);
+        assertFalse(text.contains("unique line here"), text);
+    }
+
+    private static CompressionDictionary dictionary(int id) {
+        CompressionDictionary dictionary = new CompressionDictionary();
+        dictionary.setId(id);
+        dictionary.setData(SpecContentCodec.buildDictionary(TRAINING));
+        dictionary.setSampleCount(TRAINING.size());
+        return dictionary;
+    }
+}
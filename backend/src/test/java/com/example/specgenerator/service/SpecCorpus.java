@@ -0,0 +1,99 @@
+package com.example.specgenerator.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Section texts shaped like the model's answers: an OpenAPI document, DDL, a Mermaid
+ * diagram and mock JSON per spec, over a rotating set of entities and fields.
+ */
+final class SpecCorpus {
+
+    private static final String[] ENTITIES = { "todo", "user", "order", "product", "invoice", "ticket", "comment",
+            "booking", "payment", "shipment", "review", "category" };
+
+    private static final String[] FIELDS = { "title", "name", "email", "status", "amount", "quantity", "note",
+            "address", "due_date", "priority", "description", "currency" };
+
+    private SpecCorpus() {
+    }
+
+    // Four sections per spec, in the order apiSpec, dbSchema, sequenceDiagram, mockData
+    static List<String> sections(int specs, long seed) {
+        Random random = new Random(seed);
+        List<String> sections = new ArrayList<>();
+        for (int i = 0; i < specs; i++) {
+            String entity = ENTITIES[random.nextInt(ENTITIES.length)];
+            String other = ENTITIES[random.nextInt(ENTITIES.length)];
+            List<String> fields = new ArrayList<>();
+            for (int f = 0, n = 3 + random.nextInt(5); f < n; f++) {
+                fields.add(FIELDS[random.nextInt(FIELDS.length)]);
+            }
+            sections.add(apiSpec(entity, fields));
+            sections.add(dbSchema(entity, other, fields));
+            sections.add(sequenceDiagram(entity));
+            sections.add(mockData(entity, fields, random));
+        }
+        return sections;
+    }
+
+    private static String apiSpec(String entity, List<String> fields) {
+        String type = Character.toUpperCase(entity.charAt(0)) + entity.substring(1);
+        StringBuilder out = new StringBuilder("openapi: 3.0.0\ninfo:\n  title: ").append(type)
+                .append(" API\n  version: 1.0.0\npaths:\n");
+        out.append("  /").append(entity).append("s:\n    get:\n      summary: List ").append(entity)
+                .append("s\n      responses:\n        '200':\n          description: OK\n          content:\n")
+                .append("            application/json:\n              schema:\n                type: array\n")
+                .append("                items:\n                  $ref: '#/components/schemas/").append(type)
+                .append("'\n    post:\n      summary: Create a ").append(entity).append("\n      requestBody:\n")
+                .append("        content:\n          application/json:\n            schema:\n")
+                .append("              $ref: '#/components/schemas/").append(type).append("'\n      responses:\n")
+                .append("        '201':\n          description: Created\n");
+        out.append("  /").append(entity).append("s/{id}:\n    get:\n      parameters:\n        - name: id\n")
+                .append("          in: path\n          required: true\n          schema:\n            type: integer\n")
+                .append("      responses:\n        '200':\n          description: OK\n        '404':\n")
+                .append("          description: Not found\n");
+        out.append("components:\n  schemas:\n    ").append(type).append(":\n      type: object\n")
+                .append("      properties:\n        id:\n          type: integer\n          format: int64\n");
+        for (String field : fields) {
+            out.append("        ").append(field).append(":\n          type: string\n");
+        }
+        return out.toString();
+    }
+
+    private static String dbSchema(String entity, String other, List<String> fields) {
+        StringBuilder out = new StringBuilder("CREATE TABLE ").append(entity).append("s (\n")
+                .append("  id BIGSERIAL PRIMARY KEY,\n");
+        for (String field : fields) {
+            out.append("  ").append(field).append(" VARCHAR(255) NOT NULL,\n");
+        }
+        out.append("  ").append(other).append("_id BIGINT REFERENCES ").append(other)
+                .append("s(id) ON DELETE CASCADE,\n  created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP\n);\n")
+                .append("CREATE INDEX idx_").append(entity).append("s_").append(other).append(" ON ")
+                .append(entity).append("s(").append(other).append("_id);");
+        return out.toString();
+    }
+
+    private static String sequenceDiagram(String entity) {
+        return "sequenceDiagram\n    actor User\n    participant UI\n    participant API\n    participant DB\n"
+                + "    User->>UI: Create " + entity + "\n    UI->>API: POST /" + entity + "s\n"
+                + "    API->>DB: INSERT INTO " + entity + "s\n    DB-->>API: id\n    alt valid\n"
+                + "        API-->>UI: 201 Created\n    else invalid\n        API-->>UI: 400 Bad Request\n    end\n"
+                + "    UI-->>User: Show " + entity;
+    }
+
+    private static String mockData(String entity, List<String> fields, Random random) {
+        StringBuilder out = new StringBuilder("[\n");
+        for (int row = 0, n = 2 + random.nextInt(4); row < n; row++) {
+            out.append(row > 0 ? ",\n" : "").append("  {\"id\": ").append(row + 1);
+            for (String field : fields) {
+                out.append(", \"").append(field).append("\": \"").append(entity).append(' ').append(field)
+                        .append(' ').append(random.nextInt(1000)).append('"');
+            }
+            out.append(", \"createdAt\": \"2026-0").append(1 + random.nextInt(9)).append("-1")
+                    .append(random.nextInt(10)).append("T10:00:00Z\"}");
+        }
+        return out.append("\n]").toString();
+    }
+}
@@ -0,0 +1,161 @@
+package com.example.specgenerator.service;
+
+import com.example.specgenerator.model.GeneratedSpec;
+import com.example.specgenerator.model.Project;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Wall-clock latency of one generation in single-prompt and per-section mode against a
+ * stub model. The stub answers after {@code firstTokenMs} plus the time to write each
+ * section it was asked for, so a whole-spec answer pays for all four sections in sequence.
+ * With {@code failingSection} set, that section's first answer is empty, which costs
+ * the single mode nothing but makes the section mode retry it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1, time = 2)
+@Measurement(iterations = 3, time = 3)
+@Fork(1)
+public class SpecGenerationBenchmark {
+
+    @Param({ "300" })
+    public int firstTokenMs;
+
+    // Writing time of apiSpec, dbSchema, sequenceDiagram and mockData
+    @Param({ "600,300,200,250", "200,200,200,200" })
+    public String sectionMs;
+
+    @Param({ "none", "dbSchema" })
+    public String failingSection;
+
+    private SpecGenerationService service;
+
+    private final Project project = new Project();
+
+    @Setup
+    public void setUp() {
+        String[] delays = sectionMs.split(",");
+        Map<String, Integer> writeMs = new LinkedHashMap<>();
+        writeMs.put("apiSpec", Integer.parseInt(delays[0]));
+        writeMs.put("dbSchema", Integer.parseInt(delays[1]));
+        writeMs.put("sequenceDiagram", Integer.parseInt(delays[2]));
+        writeMs.put("mockData", Integer.parseInt(delays[3]));
+
+        service = new SpecGenerationService();
+        service.aiService = new StubModel(firstTokenMs, writeMs, failingSection);
+        ReflectionTestUtils.setField(service, "defaultMode", SpecGenerationService.MODE_SINGLE);
+        ReflectionTestUtils.setField(service, "sectionWorkers", 8);
+        ReflectionTestUtils.setField(service, "sectionRetries", 1);
+        service.init();
+        project.setId(1L);
+    }
+
+    @TearDown
+    public void tearDown() {
+        service.shutdown();
+    }
+
+    @Benchmark
+    public GeneratedSpec single() {
+        return service.generate(project, "todo app", true, SpecGenerationService.MODE_SINGLE);
+    }
+
+    @Benchmark
+    public GeneratedSpec sections() {
+        return service.generate(project, "todo app", true, SpecGenerationService.MODE_SECTIONS);
+    }
+
+    private static final class StubModel extends AIService {
+        private final int firstTokenMs;
+        private final Map<String, Integer> writeMs;
+        private final String failingSection;
+        private final Map<String, AtomicInteger> calls = new ConcurrentHashMap<>();
+
+        StubModel(int firstTokenMs, Map<String, Integer> writeMs, String failingSection) {
+            this.firstTokenMs = firstTokenMs;
+            this.writeMs = writeMs;
+            this.failingSection = failingSection;
+        }
+
+        @Override
+        public String generateSpecJsonOrThrow(String prompt, boolean bypassCache) {
+            int total = firstTokenMs;
+            StringBuilder json = new StringBuilder("{");
+            for (Map.Entry<String, Integer> section : writeMs.entrySet()) {
+                total += section.getValue();
+                json.append(json.length() > 1 ? "," : "").append('"').append(section.getKey())
+                        .append("\":\"").append(section.getKey()).append(" content\"");
+            }
+            sleep(total);
+            return json.append('}').toString();
+        }
+
+        @Override
+        public String generateContentOrThrow(String prompt, boolean bypassCache) {
+            for (Map.Entry<String, Integer> section : writeMs.entrySet()) {
+                if (prompt.contains(description(section.getKey()))) {
+                    sleep(firstTokenMs + section.getValue());
+                    // Every other call for the failing section comes back empty, so each generation retries once
+                    boolean fail = section.getKey().equals(failingSection)
+                            && calls.computeIfAbsent(section.getKey(), k -> new AtomicInteger())
+                                    .getAndIncrement() % 2 == 0;
+                    return fail ? "" : section.getKey() + " content";
+                }
+            }
+            throw new AIResponseException("Unknown section prompt");
+        }
+
+        @Override
+        public int getConcurrencyLimit() {
+            return 8;
+        }
+
+        // Matches the wording of SpecGenerationService's section prompts
+        private static String description(String section) {
+            switch (section) {
+                case "apiSpec":
+                    return "OpenAPI";
+                case "dbSchema":
+                    return "CREATE TABLE";
+                case "sequenceDiagram":
+                    return "sequenceDiagram";
+                default:
+                    return "JSON example data";
+            }
+        }
+
+        private static void sleep(int ms) {
+            try {
+                Thread.sleep(ms);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new AIResponseException("Interrupted");
+            }
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder().include(SpecGenerationBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.specgenerator.service;
+
+import com.example.specgenerator.model.SpecSection;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reading the four sections out of one model answer. {@code before} is what
+ * generateSpec used to do: a new ObjectMapper per request and a strict parse, which
+ * throws (and fell back to placeholders) on anything but a bare JSON object.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SpecJsonExtractorBenchmark {
+
+    @Param({ "plain", "fenced", "chatter", "truncated" })
+    public String shape;
+
+    private String answer;
+
+    @Setup
+    public void setUp() throws Exception {
+        List<String> sections = SpecCorpus.sections(1, 3L);
+        ObjectMapper mapper = new ObjectMapper();
+        StringBuilder json = new StringBuilder("{");
+        for (int i = 0; i < SpecSection.NAMES.size(); i++) {
+            json.append(i > 0 ? "," : "").append(mapper.writeValueAsString(SpecSection.NAMES.get(i)))
+                    .append(':').append(mapper.writeValueAsString(sections.get(i)));
+        }
+        String plain = json.append('}').toString();
+
+        switch (shape) {
+            case "fenced":
+                answer = "```json\n" + plain + "\n```";
+                break;
+            case "chatter":
+                answer = "Here is the specification you asked for:\n" + plain + "\nLet me know if you need changes.";
+                break;
+            case "truncated":
+                answer = plain.substring(0, plain.length() * 9 / 10);
+                break;
+            default:
+                answer = plain;
+        }
+    }
+
+    @Benchmark
+    public Object before() {
+        try {
+            return new ObjectMapper().readValue(answer, Map.class);
+        } catch (Exception e) {
+            return e;
+        }
+    }
+
+    @Benchmark
+    public Map<String, String> extractor() {
+        return SpecJsonExtractor.extract(answer, SpecSection.NAMES);
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder().include(SpecJsonExtractorBenchmark.class.getSimpleName()).build()).run();
+    }
+}
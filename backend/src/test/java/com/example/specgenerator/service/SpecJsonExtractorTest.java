@@ -0,0 +1,139 @@
+package com.example.specgenerator.service;
+
+import com.example.specgenerator.model.SpecSection;
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SpecJsonExtractorTest {
+
+    private static final String API = "openapi: 3.0.0\ninfo:\n  title: \"Todo\"";
+    private static final String DB = "CREATE TABLE todo (id BIGINT PRIMARY KEY);";
+    private static final String SEQ = "sequenceDiagram\n  User->>API: POST /todos";
+    private static final String MOCK = "[{\"id\":1,\"title\":\"a {brace} and \\\"quote\\\"\"}]";
+
+    private static final String WELL_FORMED = "{\"apiSpec\":" + quote(API) + ",\"dbSchema\":" + quote(DB)
+            + ",\"sequenceDiagram\":" + quote(SEQ) + ",\"mockData\":" + quote(MOCK) + "}";
+
+    @Test
+    void readsTheMalformedCorpus() {
+        Map<String, String> all = expected(API, DB, SEQ, MOCK);
+
+        assertExtracts(all, WELL_FORMED);
+        assertExtracts(all, "```json\n" + WELL_FORMED + "\n```");
+        assertExtracts(all, "Sure! Here is the spec {as requested}:\n" + WELL_FORMED + "\nLet me know {if} needed.");
+        assertExtracts(all, quote(WELL_FORMED));
+        assertExtracts(all, "{\"result\":{\"spec\":" + WELL_FORMED + "}}");
+        assertExtracts(all, "{\"api_spec\":" + quote(API) + ",\"DB-SCHEMA\":" + quote(DB)
+                + ",\"SequenceDiagram\":" + quote(SEQ) + ",\"mock_data\":" + quote(MOCK) + "}");
+        assertExtracts(all, "{apiSpec:" + quote(API) + ", 'dbSchema':" + quote(DB) + ", // note\n"
+                + "sequenceDiagram:" + quote(SEQ) + ", mockData:" + quote(MOCK) + ",}");
+
+        // mockData sent as a JSON value instead of a string keeps its source text
+        assertExtracts(all, "{\"apiSpec\":" + quote(API) + ",\"dbSchema\":" + quote(DB)
+                + ",\"sequenceDiagram\":" + quote(SEQ) + ",\"mockData\":" + MOCK + "}");
+
+        // Raw newlines inside strings are accepted as the model tends to send them
+        assertExtracts(expected(API, null, null, null), "{\"apiSpec\":\"" + API.replace("\"", "\\\"") + "\"}");
+    }
+
+    @Test
+    void keepsWhatWasCompleteBeforeTheDamage() {
+        String firstTwo = "{\"apiSpec\":" + quote(API) + ",\"dbSchema\":" + quote(DB) + ",";
+        assertExtracts(expected(API, DB, null, null), firstTwo + "\"sequenceDiagram\":\"sequenceDia");
+        assertExtracts(expected(API, DB, null, null), firstTwo + "\"sequenceDiagram\": ??? }");
+        assertExtracts(expected(API, DB, null, null), firstTwo + "\"mockData\":[{\"id\":1");
+        // A stray quote ends the string early; the half value is dropped, not stored
+        assertExtracts(expected(API, null, null, null), "{\"apiSpec\":" + quote(API)
+                + ",\"dbSchema\":\"CREATE \"todo\" TABLE\"}");
+    }
+
+    @Test
+    void returnsNothingForNonObjects() {
+        assertExtracts(expected(null, null, null, null), null);
+        assertExtracts(expected(null, null, null, null), "");
+        assertExtracts(expected(null, null, null, null), "I cannot help with that.");
+        assertExtracts(expected(null, null, null, null), "[\"apiSpec\"]");
+        assertExtracts(expected(null, null, null, null), "{\"apiSpec\":null,\"other\":\"x\"}");
+        assertExtracts(expected(null, null, null, null), "{{{{{{");
+    }
+
+    @Test
+    void truncationAtAnyOffsetOnlyYieldsCompleteValues() {
+        Map<String, String> all = expected(API, DB, SEQ, MOCK);
+        for (int end = 0; end <= WELL_FORMED.length(); end++) {
+            Map<String, String> found = SpecJsonExtractor.extract(WELL_FORMED.substring(0, end), SpecSection.NAMES);
+            for (Map.Entry<String, String> entry : found.entrySet()) {
+                assertEquals(all.get(entry.getKey()), entry.getValue(), "cut at " + end);
+            }
+        }
+    }
+
+    @Test
+    void randomMutationsNeverThrowOrInventNames() {
+        Random random = new Random(20260418L);
+        char[] noise = "{}[]\":,'\\/ \n\tax0".toCharArray();
+        for (int round = 0; round < 5_000; round++) {
+            StringBuilder text = new StringBuilder(WELL_FORMED);
+            int edits = 1 + random.nextInt(4);
+            for (int i = 0; i < edits && text.length() > 0; i++) {
+                int at = random.nextInt(text.length());
+                switch (random.nextInt(3)) {
+                    case 0:
+                        text.deleteCharAt(at);
+                        break;
+                    case 1:
+                        text.insert(at, noise[random.nextInt(noise.length)]);
+                        break;
+                    default:
+                        text.setCharAt(at, noise[random.nextInt(noise.length)]);
+                }
+            }
+
+            String input = text.toString();
+            Map<String, String> found = SpecJsonExtractor.extract(input, SpecSection.NAMES);
+            assertTrue(SpecSection.NAMES.containsAll(found.keySet()), input);
+            assertTrue(found.values().stream().allMatch(v -> v != null), input);
+        }
+    }
+
+    private static void assertExtracts(Map<String, String> expected, String text) {
+        assertEquals(expected, SpecJsonExtractor.extract(text, SpecSection.NAMES), String.valueOf(text));
+    }
+
+    private static Map<String, String> expected(String api, String db, String seq, String mock) {
+        Map<String, String> map = new LinkedHashMap<>();
+        String[] values = { api, db, seq, mock };
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] != null) {
+                map.put(SpecSection.NAMES.get(i), values[i]);
+            }
+        }
+        return map;
+    }
+
+    private static String quote(String value) {
+        StringBuilder out = new StringBuilder("\"");
+        for (char c : value.toCharArray()) {
+            switch (c) {
+                case '"':
+                    out.append("\\\"");
+                    break;
+                case '\\':
+                    out.append("\\\\");
+                    break;
+                case '\n':
+                    out.append("\\n");
+                    break;
+                default:
+                    out.append(c);
+            }
+        }
+        return out.append('"').toString();
+    }
+}
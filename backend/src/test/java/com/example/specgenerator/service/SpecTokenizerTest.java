@@ -0,0 +1,59 @@
+package com.example.specgenerator.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SpecTokenizerTest {
+
+    @Test
+    void splitsIdentifiersAndKeepsTheWholeAsCompound() {
+        assertTokens("getUserById", "getuserbyid*", "get", "user", "id");
+        assertTokens("user_accounts", "user_accounts*", "user", "account");
+        assertTokens("HTTPServer", "httpserver*", "http", "server");
+        assertTokens("v2Api", "v2api*", "v2", "api");
+        assertTokens("__init__", "init");
+    }
+
+    @Test
+    void splitsPathsAndQualifiedNamesAtPunctuation() {
+        assertTokens("GET /api/v1/users/{id}", "get", "api", "v1", "user", "id");
+        assertTokens("public.order_items", "public", "order_items*", "order", "item");
+    }
+
+    @Test
+    void dropsStopWordsShortTermsAndBlobs() {
+        assertTokens("The order is created by a user", "order", "created", "user");
+        assertTokens("x = y");
+        assertTokens("address class", "address", "class");
+        char[] blob = new char[65];
+        Arrays.fill(blob, 'A');
+        assertTokens("token " + new String(blob) + " hash", "token", "hash");
+    }
+
+    @Test
+    void indexesHanRunsAsBigrams() {
+        assertTokens("用戶登入", "用戶", "戶登", "登入");
+        assertTokens("表", "表");
+        assertTokens("登入API流程", "登入", "api", "流程");
+    }
+
+    @Test
+    void ignoresMissingText() {
+        assertTokens(null);
+        assertTokens("");
+        assertTokens(" -> {} ;");
+    }
+
+    private static void assertTokens(String text, String... expected) {
+        List<String> terms = new ArrayList<>();
+        SpecTokenizer.tokenize(text, (term, compound) -> terms.add(compound ? term + "*" : term));
+        assertEquals(expected.length == 0 ? Collections.emptyList() : Arrays.asList(expected), terms,
+                String.valueOf(text));
+    }
+}
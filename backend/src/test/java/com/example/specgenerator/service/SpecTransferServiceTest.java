@@ -0,0 +1,202 @@
+package com.example.specgenerator.service;
+
+import com.example.specgenerator.model.GeneratedSpec;
+import com.example.specgenerator.model.SpecSection;
+import com.example.specgenerator.repository.GeneratedSpecRepository;
+import com.example.specgenerator.repository.SpecExportRow;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.persistence.EntityManager;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+class SpecTransferServiceTest {
+
+    private static final int SPECS = 50_000;
+
+    // Every section is 1 KB, so the project is ~200 MB of section text against these heaps
+    private static final String HEAP = "-Xmx48m";
+
+    // The zip central directory needs every entry header (250k here) until the end
+    private static final String ZIP_HEAP = "-Xmx96m";
+
+    @Test
+    void roundTrips50kSpecsInASmallFixedHeap() throws Exception {
+        List<String> output = runInSmallHeap("ndjson", HEAP);
+        assertTrue(output.contains("exported " + SPECS + " imported " + SPECS), String.join("\n", output));
+    }
+
+    @Test
+    void zipExports50kSpecsInASmallFixedHeap() throws Exception {
+        List<String> output = runInSmallHeap("zip", ZIP_HEAP);
+        assertTrue(output.contains("zipped " + SPECS), String.join("\n", output));
+    }
+
+    // A separate JVM, so the limit applies to the transfer alone and not to the test runner
+    private static List<String> runInSmallHeap(String mode, String heap) throws Exception {
+        String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+        Process process = new ProcessBuilder(java, heap, "-cp", System.getProperty("java.class.path"),
+                LargeProject.class.getName(), mode)
+                .redirectErrorStream(true)
+                .start();
+        List<String> output;
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+            output = reader.lines().filter(line -> !line.contains(" DEBUG ")).collect(Collectors.toList());
+        }
+        assertTrue(process.waitFor(5, TimeUnit.MINUTES));
+        assertEquals(0, process.exitValue(), String.join("\n", output));
+        return output;
+    }
+
+    /**
+     * Exports a generated project of {@link #SPECS} specs and, in ndjson mode, pipes the
+     * export straight into an import. Repository, transactions and section storage are
+     * stubs that keep nothing, so whatever the heap holds is held by the transfer code.
+     */
+    static final class LargeProject {
+
+        public static void main(String[] args) throws Exception {
+            AtomicInteger imported = new AtomicInteger();
+            SpecTransferService service = service(imported);
+
+            if ("zip".equals(args[0])) {
+                CountingOutputStream out = new CountingOutputStream();
+                service.exportZip(1L, out);
+                System.out.println("zip of " + out.bytes.get() + " bytes");
+                System.out.println("zipped " + SPECS);
+                return;
+            }
+
+            PipedInputStream in = new PipedInputStream(64 * 1024);
+            PipedOutputStream out = new PipedOutputStream(in);
+            CompletableFuture<Integer> importing = CompletableFuture.supplyAsync(() -> {
+                try {
+                    return service.importNdjson(2L, in);
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+            try (OutputStream export = out) {
+                service.exportNdjson(1L, export);
+            } catch (Exception e) {
+                importing.join(); // the import failing first is the more useful error
+                throw e;
+            }
+            int count = importing.get(5, TimeUnit.MINUTES);
+            System.out.println("exported " + SPECS + " imported " + count + (count == imported.get() ? "" : " !"));
+        }
+
+        private static SpecTransferService service(AtomicInteger saved) {
+            // stubOnly: mocks that record their calls would keep every spec alive
+            GeneratedSpecRepository specRepository = mock(GeneratedSpecRepository.class, withSettings().stubOnly());
+            when(specRepository.streamExportRows(1L)).thenAnswer(call -> IntStream.range(0, SPECS * 4)
+                    .mapToObj(i -> new Row(i / 4 + 1L, SpecSection.NAMES.get(i % 4))));
+            SpecSectionService sectionService = mock(SpecSectionService.class, withSettings().stubOnly());
+            when(sectionService.save(any(GeneratedSpec.class))).thenAnswer(call -> {
+                GeneratedSpec spec = call.getArgument(0);
+                if (spec.getSection(SpecSection.MOCK_DATA).length() != 1024) {
+                    throw new IllegalStateException("Section lost in transfer");
+                }
+                saved.incrementAndGet();
+                return spec;
+            });
+
+            SpecTransferService service = new SpecTransferService();
+            service.specRepository = specRepository;
+            service.specSectionService = sectionService;
+            service.migrator = mock(SpecSectionMigrator.class, withSettings().stubOnly());
+            // As configured by Spring Boot
+            service.objectMapper = Jackson2ObjectMapperBuilder.json()
+                    .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS).build();
+            service.transactionManager = mock(PlatformTransactionManager.class, withSettings().stubOnly());
+            service.entityManager = mock(EntityManager.class, withSettings().stubOnly());
+            ReflectionTestUtils.setField(service, "importChunkSize", 500);
+            service.init();
+            return service;
+        }
+    }
+
+    private static final class Row implements SpecExportRow {
+        private static final char[] FILLER = new char[1024];
+
+        static {
+            Arrays.fill(FILLER, 'x');
+        }
+
+        private final Long specId;
+        private final String name;
+
+        Row(Long specId, String name) {
+            this.specId = specId;
+            this.name = name;
+        }
+
+        public Long getSpecId() {
+            return specId;
+        }
+
+        public Long getProjectId() {
+            return 1L;
+        }
+
+        public String getRequirementDescription() {
+            return "requirement " + specId;
+        }
+
+        public LocalDateTime getCreatedAt() {
+            return LocalDateTime.of(2026, 1, 1, 0, 0).plusSeconds(specId);
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getContent() {
+            return new String(FILLER);
+        }
+
+        public String getCompressedContent() {
+            return null;
+        }
+    }
+
+    private static final class CountingOutputStream extends OutputStream {
+        final AtomicLong bytes = new AtomicLong();
+
+        @Override
+        public void write(int b) {
+            bytes.incrementAndGet();
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            bytes.addAndGet(len);
+        }
+    }
+}
@@ -5,9 +5,13 @@ import { FileText, Database, GitBranch, Code, Download, Trash2, Edit, Save, File
 
 mermaid.initialize({ startOnLoad: true });
 
+// Tab -> spec section name used by the section endpoints
+const TAB_SECTIONS = { api: 'apiSpec', db: 'dbSchema', sequence: 'sequenceDiagram', mock: 'mockData' };
+
 const SpecGenerator = ({ project }) => {
     const [requirement, setRequirement] = useState('');
-    const [specs, setSpecs] = useState([]);
+    const [specs, setSpecs] = useState([]); // summaries, newest first
+    const [nextCursor, setNextCursor] = useState(null);
     const [currentSpec, setCurrentSpec] = useState(null);
     const [loading, setLoading] = useState(false);
     const [activeTab, setActiveTab] = useState('api'); // api, db, sequence, mock
@@ -42,11 +46,13 @@ const SpecGenerator = ({ project }) => {
     }, [activeTab, currentSpec, isEditing]);
 
     const loadSpecs = () => {
-        SpecService.getSpecsByProject(project.id).then(
+        SpecService.getSpecSummaries(project.id).then(
             (response) => {
-                setSpecs(response.data);
-                if (response.data.length > 0) {
-                    setCurrentSpec(response.data[response.data.length - 1]);
+                const { items, nextCursor } = response.data;
+                setSpecs(items);
+                setNextCursor(nextCursor);
+                if (items.length > 0) {
+                    loadSpec(items[0].id);
                 } else {
                     setCurrentSpec(null);
                 }
@@ -57,15 +63,37 @@ const SpecGenerator = ({ project }) => {
         );
     };
 
+    const loadMoreSpecs = () => {
+        SpecService.getSpecSummaries(project.id, nextCursor).then(
+            (response) => {
+                setSpecs([...specs, ...response.data.items]);
+                setNextCursor(response.data.nextCursor);
+            },
+            (error) => {
+                console.log("Error loading specs", error);
+            }
+        );
+    };
+
+    // The list only holds summaries; artifacts are fetched for the selected version.
+    const loadSpec = (id) => {
+        SpecService.getSpec(id).then(
+            (response) => {
+                setCurrentSpec(response.data);
+            },
+            (error) => {
+                console.log("Error loading spec", error);
+            }
+        );
+    };
+
     const handleGenerate = () => {
         if (!requirement.trim()) return;
 
         setLoading(true);
         SpecService.generateSpec(project.id, requirement).then(
             (response) => {
-                setSpecs([...specs, response.data]);
-                setCurrentSpec(response.data);
-                setLoading(false);
+                pollJob(response.data.jobId);
             },
             (error) => {
                 console.log("Error generating spec", error);
@@ -74,6 +102,28 @@ const SpecGenerator = ({ project }) => {
         );
     };
 
+    // Generation runs as a background job; poll until it finishes, then reload the list.
+    const pollJob = (jobId) => {
+        SpecService.getJob(jobId).then(
+            (response) => {
+                const job = response.data;
+                if (job.status === 'COMPLETED') {
+                    loadSpecs();
+                    setLoading(false);
+                } else if (job.status === 'FAILED') {
+                    console.log("Spec generation failed", job.errorMessage);
+                    setLoading(false);
+                } else {
+                    setTimeout(() => pollJob(jobId), 2000);
+                }
+            },
+            (error) => {
+                console.log("Error polling generation job", error);
+                setLoading(false);
+            }
+        );
+    };
+
     const handleDeleteSpec = () => {
         if (!currentSpec || !window.confirm("確定要刪除此版本規格嗎？")) return;
 
@@ -81,7 +131,11 @@ const SpecGenerator = ({ project }) => {
             () => {
                 const newSpecs = specs.filter(s => s.id !== currentSpec.id);
                 setSpecs(newSpecs);
-                setCurrentSpec(newSpecs.length > 0 ? newSpecs[newSpecs.length - 1] : null);
+                if (newSpecs.length > 0) {
+                    loadSpec(newSpecs[0].id);
+                } else {
+                    setCurrentSpec(null);
+                }
             },
             (error) => {
                 console.log("Error deleting spec", error);
@@ -152,18 +206,8 @@ const SpecGenerator = ({ project }) => {
                 const refinedContent = response.data.refinedContent;
 
                 // Automatically save the refined content
-                const updatedSpec = { ...currentSpec };
-                switch (activeTab) {
-                    case 'api': updatedSpec.apiSpec = refinedContent; break;
-                    case 'db': updatedSpec.dbSchema = refinedContent; break;
-                    case 'sequence': updatedSpec.sequenceDiagram = refinedContent; break;
-                    case 'mock': updatedSpec.mockData = refinedContent; break;
-                }
-
-                SpecService.updateSpec(currentSpec.id, updatedSpec).then(
-                    (res) => {
-                        setCurrentSpec(res.data);
-                        setSpecs(specs.map(s => s.id === res.data.id ? res.data : s));
+                saveSection(refinedContent).then(
+                    () => {
                         setRefiningLoading(false);
                         setIsRefining(false);
                         setRefineInstruction('');
@@ -181,19 +225,27 @@ const SpecGenerator = ({ project }) => {
         );
     };
 
-    const handleSave = () => {
-        const updatedSpec = { ...currentSpec };
-        switch (activeTab) {
-            case 'api': updatedSpec.apiSpec = editContent; break;
-            case 'db': updatedSpec.dbSchema = editContent; break;
-            case 'sequence': updatedSpec.sequenceDiagram = editContent; break;
-            case 'mock': updatedSpec.mockData = editContent; break;
-        }
-
-        SpecService.updateSpec(currentSpec.id, updatedSpec).then(
+    // Only the active tab's section is sent and written
+    const saveSection = (content) => {
+        const section = TAB_SECTIONS[activeTab];
+        return SpecService.updateSpecSection(currentSpec.id, section, content, currentSpec.version).then(
             (response) => {
-                setCurrentSpec(response.data);
-                setSpecs(specs.map(s => s.id === response.data.id ? response.data : s));
+                setCurrentSpec({ ...currentSpec, [section]: response.data.content, version: response.data.version });
+                return response;
+            },
+            (error) => {
+                if (error.response && error.response.status === 409) {
+                    alert('此規格已被其他人修改，將重新載入最新版本。');
+                    loadSpec(currentSpec.id);
+                }
+                throw error;
+            }
+        );
+    };
+
+    const handleSave = () => {
+        saveSection(editContent).then(
+            () => {
                 setIsEditing(false);
             },
             (error) => {
@@ -405,13 +457,21 @@ const SpecGenerator = ({ project }) => {
                         <span className="text-sm font-medium text-stone-500 ml-2">版本歷史 ({specs.length})</span>
                         <select
                             className="border border-stone-300 rounded-lg p-1.5 text-sm text-stone-700 focus:outline-none focus:ring-1 focus:ring-orange-500"
-                            onChange={(e) => setCurrentSpec(specs.find(s => s.id === parseInt(e.target.value)))}
+                            onChange={(e) => loadSpec(parseInt(e.target.value))}
                             value={currentSpec?.id || ''}
                         >
                             {specs.map((s, idx) => (
-                                <option key={s.id} value={s.id}>v{idx + 1} - {new Date(s.createdAt).toLocaleString()}</option>
+                                <option key={s.id} value={s.id}>v{specs.length - idx} - {new Date(s.createdAt).toLocaleString()}</option>
                             ))}
                         </select>
+                        {nextCursor && (
+                            <button
+                                onClick={loadMoreSpecs}
+                                className="text-sm text-orange-600 hover:text-orange-700 ml-2"
+                            >
+                                載入更多
+                            </button>
+                        )}
                     </div>
                 )}
             </div>
@@ -4,6 +4,17 @@ const getSpecsByProject = (projectId) => {
     return api.get(`/specs/project/${projectId}`);
 };
 
+// Newest first, without artifact contents; pass the previous response's nextCursor for more.
+const getSpecSummaries = (projectId, cursor) => {
+    return api.get(`/specs/project/${projectId}/summaries`, {
+        params: { limit: 50, ...(cursor ? { cursor } : {}) }
+    });
+};
+
+const getSpec = (id) => {
+    return api.get(`/specs/${id}`);
+};
+
 const generateSpec = (projectId, requirement) => {
     return api.post('/specs/generate', {
         projectId,
@@ -11,10 +22,67 @@ const generateSpec = (projectId, requirement) => {
     });
 };
 
+const getJob = (jobId) => {
+    return api.get(`/specs/jobs/${jobId}`);
+};
+
+// POST + SSE: EventSource cannot send the bearer token, so read the stream with fetch.
+// onEvent(name, data) is called for every 'token', 'spec', 'done' and 'error' event.
+const streamEvents = async (path, body, onEvent) => {
+    const user = JSON.parse(localStorage.getItem('user'));
+    const response = await fetch(api.defaults.baseURL + path, {
+        method: 'POST',
+        headers: {
+            'Content-Type': 'application/json',
+            'Accept': 'text/event-stream',
+            ...(user && user.token ? { Authorization: 'Bearer ' + user.token } : {}),
+        },
+        body: JSON.stringify(body),
+    });
+    if (!response.ok) {
+        throw new Error(`Stream request failed: ${response.status}`);
+    }
+
+    const reader = response.body.getReader();
+    const decoder = new TextDecoder();
+    let buffer = '';
+    for (;;) {
+        const { value, done } = await reader.read();
+        if (done) break;
+        buffer += decoder.decode(value, { stream: true });
+
+        let boundary;
+        while ((boundary = buffer.indexOf('\n\n')) >= 0) {
+            const rawEvent = buffer.slice(0, boundary);
+            buffer = buffer.slice(boundary + 2);
+            let name = 'message';
+            const data = [];
+            rawEvent.split('\n').forEach((line) => {
+                if (line.startsWith('event:')) name = line.slice(6).trim();
+                else if (line.startsWith('data:')) data.push(line.slice(5));
+            });
+            onEvent(name, data.join('\n'));
+        }
+    }
+};
+
+const generateSpecStream = (projectId, requirement, onEvent) => {
+    return streamEvents('/specs/generate/stream', { projectId, requirement }, onEvent);
+};
+
+const refineSpecStream = (section, currentContent, instruction, onEvent) => {
+    return streamEvents('/specs/refine/stream', { section, currentContent, instruction }, onEvent);
+};
+
 const updateSpec = (id, data) => {
     return api.put(`/specs/${id}`, data);
 };
 
+// Pass the version the edit was based on; the server answers 409 if the spec changed since.
+const updateSpecSection = (id, section, content, version) => {
+    return api.put(`/specs/${id}/sections/${section}`, { content, version });
+};
+
 const deleteSpec = (id) => {
     return api.delete(`/specs/${id}`);
 };
@@ -29,10 +97,16 @@ const refineSpec = (section, currentContent, instruction) => {
 
 const SpecService = {
     getSpecsByProject,
+    getSpecSummaries,
+    getSpec,
     generateSpec,
+    getJob,
     updateSpec,
+    updateSpecSection,
     deleteSpec,
     refineSpec,
+    generateSpecStream,
+    refineSpecStream,
 };
 
 export default SpecService;